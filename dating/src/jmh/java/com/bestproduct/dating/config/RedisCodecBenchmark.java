@@ -0,0 +1,100 @@
+package com.bestproduct.dating.config;
+
+import com.bestproduct.dating.service.MatchingService;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Кодеки значений горячих ключей Redis: общий JSON-сериализатор против типизированных шаблонов из RedisConfig.
+ * Каждый замер - запись и чтение одного значения (как SET + GET); размер значения в байтах
+ * выводится счетчиком encodedBytes рядом со временем (mvn -Pbenchmark test-compile exec:exec)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RedisCodecBenchmark {
+
+    // Тот же сериализатор, что у redisTemplate и кэша Spring
+    private final GenericJackson2JsonRedisSerializer json = new RedisConfig().customJsonRedisSerializer();
+    private final RecordBinaryRedisSerializer<MatchingService.MatchingStatistics> statsBinary =
+        new RecordBinaryRedisSerializer<>(MatchingService.MatchingStatistics.class);
+    private final GenericToStringSerializer<Long> counterString = new GenericToStringSerializer<>(Long.class);
+    private final RedisSerializer<String> flagString = RedisSerializer.string();
+
+    private final MatchingService.MatchingStatistics stats = new MatchingService.MatchingStatistics(1543, 988, 37);
+    private final Long counter = 37L;
+
+    /**
+     * Размер закодированного значения последнего замера
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class EncodedSize {
+        public long encodedBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            encodedBytes = 0;
+        }
+    }
+
+    @Benchmark
+    public Object statsJson(EncodedSize size) {
+        byte[] bytes = json.serialize(stats);
+        size.encodedBytes = bytes.length;
+        return json.deserialize(bytes);
+    }
+
+    @Benchmark
+    public Object statsBinary(EncodedSize size) {
+        byte[] bytes = statsBinary.serialize(stats);
+        size.encodedBytes = bytes.length;
+        return statsBinary.deserialize(bytes);
+    }
+
+    @Benchmark
+    public Object counterJson(EncodedSize size) {
+        byte[] bytes = json.serialize(counter);
+        size.encodedBytes = bytes.length;
+        return json.deserialize(bytes);
+    }
+
+    @Benchmark
+    public Object counterString(EncodedSize size) {
+        byte[] bytes = counterString.serialize(counter);
+        size.encodedBytes = bytes.length;
+        return counterString.deserialize(bytes);
+    }
+
+    @Benchmark
+    public Object flagJson(EncodedSize size) {
+        byte[] bytes = json.serialize(Boolean.TRUE);
+        size.encodedBytes = bytes.length;
+        return json.deserialize(bytes);
+    }
+
+    @Benchmark
+    public Object flagString(EncodedSize size) {
+        byte[] bytes = flagString.serialize("1");
+        size.encodedBytes = bytes.length;
+        return flagString.deserialize(bytes);
+    }
+}
@@ -0,0 +1,96 @@
+package com.bestproduct.dating.telegram.keyboard;
+
+import com.bestproduct.dating.telegram.callback.CallbackAction;
+import com.bestproduct.dating.telegram.callback.CallbackCodec;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость клавиатуры одной карточки свайпа: сборка и сериализация, как при отправке сообщения.
+ * Сравнивается клавиатура по шаблону (KeyboardFactory) и та же клавиатура, собранная заново из объектов.
+ * Выделение памяти на карточку - gc.alloc.rate.norm в выводе профайлера gc (mvn -Pbenchmark test-compile exec:exec)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SwipeKeyboardBenchmark {
+
+    // Тот же формат, что у библиотеки при отправке запроса
+    private final ObjectMapper mapper = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    private long profileUserId = 1_000_000;
+
+    @Benchmark
+    public String templateSinglePhoto() throws JsonProcessingException {
+        return mapper.writeValueAsString(KeyboardFactory.getSwipeCardKeyboard(nextId(), 42L, 0, 1));
+    }
+
+    @Benchmark
+    public String rebuiltSinglePhoto() throws JsonProcessingException {
+        return mapper.writeValueAsString(rebuild(nextId(), 42L, 0, 1));
+    }
+
+    @Benchmark
+    public String templatePaged() throws JsonProcessingException {
+        return mapper.writeValueAsString(KeyboardFactory.getSwipeCardKeyboard(nextId(), 42L, 1, 4));
+    }
+
+    @Benchmark
+    public String rebuiltPaged() throws JsonProcessingException {
+        return mapper.writeValueAsString(rebuild(nextId(), 42L, 1, 4));
+    }
+
+    private long nextId() {
+        return profileUserId++;
+    }
+
+    /**
+     * Клавиатура карточки, собранная без шаблона - как до кэширования клавиатур
+     */
+    private static InlineKeyboardMarkup rebuild(long profileUserId, long profileId, int photoIndex, int photoCount) {
+        List<List<InlineKeyboardButton>> rows = new ArrayList<>();
+        if (photoCount > 1) {
+            int previous = (photoIndex + photoCount - 1) % photoCount;
+            int next = (photoIndex + 1) % photoCount;
+            rows.add(List.of(
+                button("◀️ " + (previous + 1) + "/" + photoCount,
+                    CallbackCodec.encode(CallbackAction.SWIPE_PHOTO, profileId, previous)),
+                button((next + 1) + "/" + photoCount + " ▶️",
+                    CallbackCodec.encode(CallbackAction.SWIPE_PHOTO, profileId, next))));
+        }
+        List<InlineKeyboardButton> swipeRow = new ArrayList<>();
+        swipeRow.add(button("👎 Нет", CallbackCodec.encode(CallbackAction.SWIPE_DISLIKE, profileUserId)));
+        swipeRow.add(button("⭐ Супер", CallbackCodec.encode(CallbackAction.SWIPE_SUPERLIKE, profileUserId)));
+        swipeRow.add(button("❤️ Да", CallbackCodec.encode(CallbackAction.SWIPE_LIKE, profileUserId)));
+        rows.add(swipeRow);
+        List<InlineKeyboardButton> stopRow = new ArrayList<>();
+        stopRow.add(button("⏹️ Остановить", CallbackCodec.encode(CallbackAction.SWIPE_STOP)));
+        rows.add(stopRow);
+        return new InlineKeyboardMarkup(rows);
+    }
+
+    private static InlineKeyboardButton button(String text, String callbackData) {
+        InlineKeyboardButton button = new InlineKeyboardButton(text);
+        button.setCallbackData(callbackData);
+        return button;
+    }
+}
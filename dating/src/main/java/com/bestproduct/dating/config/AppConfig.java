@@ -2,7 +2,9 @@ package com.bestproduct.dating.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
@@ -25,6 +27,13 @@ public class AppConfig {
     private Events events = new Events();
     private Moderation moderation = new Moderation();
     private Images images = new Images();
+    private Partitioning partitioning = new Partitioning();
+    private Datasource datasource = new Datasource();
+    private DbBulkhead dbBulkhead = new DbBulkhead();
+    private RedisResilience redisResilience = new RedisResilience();
+    private Admission admission = new Admission();
+    private Shutdown shutdown = new Shutdown();
+    private Observability observability = new Observability();
 
     @Getter
     @Setter
@@ -54,6 +63,23 @@ public class AppConfig {
     public static class Matching {
         private int maxDailyLikes = 100;
         private int maxVisibleProfiles = 50;
+        /**
+         * Читать старые ключи matching:swipe/like:{from}:{to} при промахе и переносить их в hash пользователя.
+         * Каждый промах стоит лишних запросов к Redis, поэтому включается только на время переноса
+         */
+        private boolean legacyPairKeysFallback = false;
+        /** Однократно перенести все старые ключи в фоне при старте */
+        private boolean migrateLegacyPairKeys = false;
+        /** Показ карточки в свайпе: одним сообщением с листанием фото или альбомом с отдельными кнопками */
+        private SwipeCardMode swipeCardMode = SwipeCardMode.SINGLE_MESSAGE;
+        /** Сколько следующих карточек держать готовыми в сессии свайпа (1-3) */
+        private int swipePrefetchSize = 3;
+        /** Сколько живет подготовленная карточка, прежде чем ее выборку нужно повторить */
+        private int swipePrefetchTtlSeconds = 120;
+
+        public enum SwipeCardMode {
+            SINGLE_MESSAGE, ALBUM
+        }
     }
 
     @Getter
@@ -63,6 +89,31 @@ public class AppConfig {
         private int maxParticipants = 20;
         private int minDescriptionLength = 10;
         private int maxDescriptionLength = 500;
+        private Scheduler scheduler = new Scheduler();
+        private Discovery discovery = new Discovery();
+
+        @Getter
+        @Setter
+        public static class Scheduler {
+            private boolean enabled = true;
+            /** Как часто подгружать события ближайшего окна в колесо таймеров */
+            private int loadIntervalMinutes = 10;
+            private int reminderLeadMinutes = 60;
+            /** Через сколько часов после начала событие считается завершенным */
+            private int durationHours = 4;
+            private long leaseTtlMs = 15000;
+        }
+
+        @Getter
+        @Setter
+        public static class Discovery {
+            /** Точность геохеша тайла: 5 символов - около 5x5 км */
+            private int tilePrecision = 5;
+            /** Время жизни кэша тайла и длина временного окна в ключе */
+            private int tileCacheTtlSeconds = 60;
+            /** Сколько событий тайла хранится в кэше; заполненный до лимита тайл не используется */
+            private int tileFetchLimit = 100;
+        }
     }
 
     @Getter
@@ -82,6 +133,108 @@ public class AppConfig {
         private String allowedFormats = "jpg,jpeg,png,webp";
     }
 
+    @Getter
+    @Setter
+    public static class Partitioning {
+        private boolean enabled = true;
+        private int premakeWeeks = 4;
+        private int swipeHistoryRetentionDays = 35;
+        private int likesRetentionDays = 180;
+        /** true - старые партиции отсоединяются и остаются архивными таблицами, false - удаляются */
+        private boolean detachInsteadOfDrop = false;
+    }
+
+    @Getter
+    @Setter
+    public static class Datasource {
+        private Replica replica = new Replica();
+
+        @Getter
+        @Setter
+        public static class Replica {
+            private boolean enabled = false;
+            private String url;
+            private String username;
+            private String password;
+            private int maximumPoolSize = 20;
+            private int minimumIdle = 5;
+            private long connectionTimeoutMs = 5000;
+            /** Максимальное допустимое отставание реплики, после которого чтение уходит на primary */
+            private int maxLagSeconds = 10;
+            private long lagCheckIntervalMs = 5000;
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class DbBulkhead {
+        private boolean enabled = true;
+        private long acquireTimeoutMs = 10000;
+        /** Интерактивная нагрузка может занять весь пул, фоновые классы ограничены своими квотами */
+        private int interactivePermits = 20;
+        private int backgroundPermits = 6;
+        private int notificationPermits = 4;
+
+        public int quotaFor(Workload workload) {
+            return switch (workload) {
+                case INTERACTIVE -> interactivePermits;
+                case BACKGROUND -> backgroundPermits;
+                case NOTIFICATION -> notificationPermits;
+            };
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class RedisResilience {
+        /** Ошибок подряд до размыкания circuit breaker'а */
+        private int failureThreshold = 3;
+        /** Сколько Redis считается недоступным перед пробным запросом */
+        private long openDurationMs = 5000;
+    }
+
+    @Getter
+    @Setter
+    public static class Admission {
+        private boolean enabled = true;
+        /** Потоков, разбирающих очереди апдейтов */
+        private int dispatcherThreads = 8;
+        /** Нажатия кнопок (свайпы) - первый приоритет, по ожиданию не отбрасываются */
+        private Lane callbacks = new Lane(500, 0);
+        private Lane commands = new Lane(200, 3000);
+        /** Текст, фото и геолокация - последний приоритет */
+        private Lane messages = new Lane(200, 2000);
+
+        @Getter
+        @Setter
+        @NoArgsConstructor
+        @AllArgsConstructor
+        public static class Lane {
+            private int queueCapacity;
+            /** Апдейт, прождавший в очереди дольше, отбрасывается с ответом "бот занят"; 0 - не отбрасывать */
+            private long maxWaitMs;
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class Shutdown {
+        /** Сколько дорабатывать принятые апдейты и исходящие отправки после остановки long polling */
+        private long drainTimeoutMs = 20000;
+    }
+
+    @Getter
+    @Setter
+    public static class Observability {
+        /** Апдейт, обработанный дольше (с учетом ожидания в очереди), пишется в лог с разбивкой по стадиям */
+        private long slowUpdateMs = 1000;
+        /** SQL-запрос дольше попадает в журнал медленных запросов (/actuator/slowqueries) */
+        private long slowQueryMs = 200;
+        private int slowQueryRingSize = 200;
+        /** Один и тот же запрос, выполненный за апдейт столько раз, считается N+1 */
+        private int repeatedStatementThreshold = 10;
+    }
+
     @Bean
     public ObjectMapper objectMapper() {
         ObjectMapper mapper = new ObjectMapper();
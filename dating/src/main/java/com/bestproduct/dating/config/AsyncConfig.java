@@ -32,6 +32,7 @@ public class AsyncConfig implements AsyncConfigurer {
         executor.setMaxPoolSize(50);
         executor.setQueueCapacity(100);
         executor.setThreadNamePrefix("telegram-bot-");
+        executor.setTaskDecorator(Workload.INTERACTIVE.taskDecorator());
         executor.setWaitForTasksToCompleteOnShutdown(true);
         executor.setAwaitTerminationSeconds(60);
         executor.setRejectedExecutionHandler(new java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy());
@@ -51,6 +52,7 @@ public class AsyncConfig implements AsyncConfigurer {
         executor.setMaxPoolSize(20);
         executor.setQueueCapacity(200);
         executor.setThreadNamePrefix("background-");
+        executor.setTaskDecorator(Workload.BACKGROUND.taskDecorator());
         executor.setWaitForTasksToCompleteOnShutdown(true);
         executor.setAwaitTerminationSeconds(60);
         executor.initialize();
@@ -69,6 +71,7 @@ public class AsyncConfig implements AsyncConfigurer {
         executor.setMaxPoolSize(15);
         executor.setQueueCapacity(500);
         executor.setThreadNamePrefix("notification-");
+        executor.setTaskDecorator(Workload.NOTIFICATION.taskDecorator());
         executor.setWaitForTasksToCompleteOnShutdown(true);
         executor.setAwaitTerminationSeconds(30);
         executor.initialize();
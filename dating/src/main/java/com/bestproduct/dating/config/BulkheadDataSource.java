@@ -0,0 +1,118 @@
+package com.bestproduct.dating.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * DataSource с квотами соединений на класс нагрузки (bulkhead поверх общего пула).
+ * Поток получает соединение только после получения разрешения своего класса,
+ * разрешение возвращается при закрытии соединения.
+ */
+public class BulkheadDataSource extends DelegatingDataSource {
+
+    private final Map<Workload, Semaphore> permits = new EnumMap<>(Workload.class);
+    private final Map<Workload, Timer> waitTimers = new EnumMap<>(Workload.class);
+    private final Map<Workload, Counter> rejections = new EnumMap<>(Workload.class);
+    private final long acquireTimeoutMs;
+
+    public BulkheadDataSource(DataSource target, AppConfig.DbBulkhead config, MeterRegistry meterRegistry) {
+        super(target);
+        this.acquireTimeoutMs = config.getAcquireTimeoutMs();
+        for (Workload workload : Workload.values()) {
+            int quota = config.quotaFor(workload);
+            Semaphore semaphore = new Semaphore(quota, true);
+            permits.put(workload, semaphore);
+            String tag = workload.name().toLowerCase();
+            waitTimers.put(workload, Timer.builder("db.bulkhead.wait")
+                .description("Ожидание разрешения на соединение с БД")
+                .tag("workload", tag)
+                .register(meterRegistry));
+            rejections.put(workload, Counter.builder("db.bulkhead.rejected")
+                .tag("workload", tag)
+                .register(meterRegistry));
+            Gauge.builder("db.bulkhead.in_use", semaphore, s -> quota - s.availablePermits())
+                .tag("workload", tag)
+                .register(meterRegistry);
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Workload workload = Workload.current();
+        acquire(workload);
+        try {
+            return withPermitRelease(super.getConnection(), workload);
+        } catch (SQLException | RuntimeException e) {
+            permits.get(workload).release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        Workload workload = Workload.current();
+        acquire(workload);
+        try {
+            return withPermitRelease(super.getConnection(username, password), workload);
+        } catch (SQLException | RuntimeException e) {
+            permits.get(workload).release();
+            throw e;
+        }
+    }
+
+    private void acquire(Workload workload) throws SQLException {
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.get(workload).tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for " + workload + " connection permit");
+        } finally {
+            waitTimers.get(workload).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        if (!acquired) {
+            rejections.get(workload).increment();
+            throw new SQLTransientConnectionException(
+                workload + " connection quota exhausted, waited " + acquireTimeoutMs + "ms");
+        }
+    }
+
+    private Connection withPermitRelease(Connection connection, Workload workload) {
+        AtomicBoolean released = new AtomicBoolean(false);
+        return (Connection) Proxy.newProxyInstance(
+            Connection.class.getClassLoader(),
+            new Class<?>[]{Connection.class},
+            (proxy, method, args) -> {
+                if ("close".equals(method.getName()) && released.compareAndSet(false, true)) {
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    } finally {
+                        permits.get(workload).release();
+                    }
+                }
+                try {
+                    return method.invoke(connection, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getTargetException();
+                }
+            });
+    }
+}
@@ -0,0 +1,48 @@
+package com.bestproduct.dating.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.task.ThreadPoolTaskSchedulerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Разделение соединений с БД между классами нагрузки.
+ * Основной DataSource оборачивается в BulkheadDataSource, @Scheduled задачи помечаются как фоновые.
+ */
+@Configuration
+@Slf4j
+public class DataSourceBulkheadConfig {
+
+    private static final String DATA_SOURCE_BEAN = "dataSource";
+
+    @Bean
+    public static BeanPostProcessor dataSourceBulkheadPostProcessor(ObjectProvider<AppConfig> appConfig,
+                                                                     ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!DATA_SOURCE_BEAN.equals(beanName) || !(bean instanceof DataSource dataSource)
+                        || bean instanceof BulkheadDataSource) {
+                    return bean;
+                }
+                AppConfig.DbBulkhead config = appConfig.getObject().getDbBulkhead();
+                if (!config.isEnabled()) {
+                    return bean;
+                }
+                log.info("DB bulkhead enabled: interactive={}, background={}, notification={}",
+                    config.getInteractivePermits(), config.getBackgroundPermits(), config.getNotificationPermits());
+                return new BulkheadDataSource(dataSource, config, meterRegistry.getObject());
+            }
+        };
+    }
+
+    @Bean
+    public ThreadPoolTaskSchedulerCustomizer backgroundWorkloadSchedulerCustomizer() {
+        return scheduler -> scheduler.setTaskDecorator(Workload.BACKGROUND.taskDecorator());
+    }
+}
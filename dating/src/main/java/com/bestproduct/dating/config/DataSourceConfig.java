@@ -0,0 +1,79 @@
+package com.bestproduct.dating.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Маршрутизация чтения на реплику.
+ * Включается через app.datasource.replica.enabled, иначе используется стандартный DataSource Spring Boot.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.datasource.replica", name = "enabled", havingValue = "true")
+public class DataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public HikariDataSource replicaDataSource(DataSourceProperties properties, AppConfig appConfig) {
+        AppConfig.Datasource.Replica replica = appConfig.getDatasource().getReplica();
+        if (replica.getUrl() == null || replica.getUrl().isBlank()) {
+            throw new IllegalStateException("app.datasource.replica.url must be set when replica is enabled");
+        }
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setDriverClassName(properties.getDriverClassName());
+        dataSource.setJdbcUrl(replica.getUrl());
+        dataSource.setUsername(replica.getUsername());
+        dataSource.setPassword(replica.getPassword());
+        dataSource.setMaximumPoolSize(replica.getMaximumPoolSize());
+        dataSource.setMinimumIdle(replica.getMinimumIdle());
+        dataSource.setConnectionTimeout(replica.getConnectionTimeoutMs());
+        dataSource.setReadOnly(true);
+        // Реплика может быть недоступна на старте - приложение должно подняться и читать с primary
+        dataSource.setInitializationFailTimeout(-1);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(HikariDataSource replicaDataSource, AppConfig appConfig,
+                                               MeterRegistry meterRegistry) {
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(replicaDataSource,
+            appConfig.getDatasource().getReplica().getMaxLagSeconds(), meterRegistry);
+        monitor.checkLag();
+        return monitor;
+    }
+
+    /**
+     * Основной DataSource приложения. LazyConnectionDataSourceProxy откладывает получение соединения
+     * до первого запроса, когда флаг readOnly транзакции уже выставлен
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, HikariDataSource replicaDataSource,
+                                 ReplicaLagMonitor replicaLagMonitor) {
+        ReadReplicaRoutingDataSource routing = new ReadReplicaRoutingDataSource(replicaLagMonitor::isReplicaAvailable);
+        routing.setTargetDataSources(Map.of(
+            ReadReplicaRoutingDataSource.Route.PRIMARY, primaryDataSource,
+            ReadReplicaRoutingDataSource.Route.REPLICA, replicaDataSource
+        ));
+        routing.setDefaultTargetDataSource(primaryDataSource);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
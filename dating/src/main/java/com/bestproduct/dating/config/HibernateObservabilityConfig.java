@@ -0,0 +1,21 @@
+package com.bestproduct.dating.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Подключение замеров Hibernate к трассе апдейтов и журналу медленных запросов
+ */
+@Configuration
+public class HibernateObservabilityConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer updateTraceHibernateCustomizer(HibernateStatementMonitor statementMonitor) {
+        return properties -> {
+            properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, UpdateTraceSessionListener.class.getName());
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, statementMonitor);
+        };
+    }
+}
@@ -0,0 +1,74 @@
+package com.bestproduct.dating.config;
+
+import com.bestproduct.dating.service.SlowQueryLog;
+import com.bestproduct.dating.util.UpdateTrace;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Замеры SQL-запросов Hibernate без логирования SQL.
+ * StatementInspector запоминает текст запроса, который поток готовит, и учитывает его в трассе апдейта
+ * (число запросов, повторы - признак N+1); по окончании выполнения слушатель сессии передает время,
+ * и медленный запрос попадает в SlowQueryLog с меткой обработчика.
+ * Слушатель сессии Hibernate создает сам, поэтому он обращается к монитору через статическую ссылку.
+ */
+@Component
+@Slf4j
+public class HibernateStatementMonitor implements StatementInspector {
+
+    private static final ThreadLocal<String> PREPARED_SQL = new ThreadLocal<>();
+    private static volatile HibernateStatementMonitor active;
+
+    private final SlowQueryLog slowQueryLog;
+    private final AppConfig appConfig;
+    private final Timer statementTimer;
+
+    public HibernateStatementMonitor(SlowQueryLog slowQueryLog, AppConfig appConfig, MeterRegistry meterRegistry) {
+        this.slowQueryLog = slowQueryLog;
+        this.appConfig = appConfig;
+        this.statementTimer = Timer.builder("hibernate.statement.duration").register(meterRegistry);
+    }
+
+    @PostConstruct
+    void activate() {
+        active = this;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        PREPARED_SQL.set(sql);
+        UpdateTrace.statement(sql);
+        return sql;
+    }
+
+    /**
+     * Запрос, подготовленный текущим потоком, выполнен за nanos
+     */
+    static void executed(long nanos) {
+        String sql = PREPARED_SQL.get();
+        // Иначе текст последнего запроса остается в потоке пула и приписывается следующему выполнению
+        PREPARED_SQL.remove();
+        HibernateStatementMonitor monitor = active;
+        if (monitor != null) {
+            monitor.record(sql, nanos);
+        }
+    }
+
+    private void record(String sql, long nanos) {
+        statementTimer.record(nanos, TimeUnit.NANOSECONDS);
+        long durationMs = Duration.ofNanos(nanos).toMillis();
+        if (sql == null || durationMs < appConfig.getObservability().getSlowQueryMs()) {
+            return;
+        }
+        String handler = UpdateTrace.currentLabel();
+        slowQueryLog.add(sql, durationMs, handler != null ? handler : Thread.currentThread().getName());
+        log.debug("Slow query {} ms in {}", durationMs, handler);
+    }
+}
@@ -0,0 +1,57 @@
+package com.bestproduct.dating.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * DataSource, направляющий readOnly-транзакции на реплику, а все остальное - на primary.
+ * Если реплика отстает или недоступна, чтение тоже идет на primary.
+ * Чтение, которое не должно видеть отставание реплики, выполняется через onPrimary.
+ */
+public class ReadReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        PRIMARY,
+        REPLICA
+    }
+
+    private static final ThreadLocal<Boolean> PRIMARY_HINT = new ThreadLocal<>();
+
+    private final BooleanSupplier replicaAvailable;
+
+    public ReadReplicaRoutingDataSource(BooleanSupplier replicaAvailable) {
+        this.replicaAvailable = replicaAvailable;
+    }
+
+    /**
+     * Выполнить чтение на primary, даже если транзакция readOnly. Соединение берется лениво
+     * при первом запросе, поэтому подсказка действует, если транзакция еще не обращалась к БД
+     */
+    public static <T> T onPrimary(Supplier<T> call) {
+        Boolean previous = PRIMARY_HINT.get();
+        PRIMARY_HINT.set(Boolean.TRUE);
+        try {
+            return call.get();
+        } finally {
+            if (previous != null) {
+                PRIMARY_HINT.set(previous);
+            } else {
+                PRIMARY_HINT.remove();
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (PRIMARY_HINT.get() != null) {
+            return Route.PRIMARY;
+        }
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && replicaAvailable.getAsBoolean()) {
+            return Route.REPLICA;
+        }
+        return Route.PRIMARY;
+    }
+}
@@ -0,0 +1,177 @@
+package com.bestproduct.dating.config;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.RecordComponent;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Компактный бинарный сериализатор для record-DTO.
+ * Пишет только значения компонентов в порядке объявления (без имен полей и @class):
+ * целые - zigzag varint, строки - UTF-8 с длиной, даты - epoch-значения.
+ * Первый байт - версия формата, чтобы несовместимые значения не читались молча.
+ */
+public class RecordBinaryRedisSerializer<T extends Record> implements RedisSerializer<T> {
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private final Class<T> type;
+    private final RecordComponent[] components;
+    private final Constructor<T> constructor;
+
+    public RecordBinaryRedisSerializer(Class<T> type) {
+        this.type = type;
+        this.components = type.getRecordComponents();
+        try {
+            this.constructor = type.getDeclaredConstructor(
+                Arrays.stream(components).map(RecordComponent::getType).toArray(Class<?>[]::new));
+            this.constructor.setAccessible(true);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException("No canonical constructor for " + type.getName(), e);
+        }
+        for (RecordComponent component : components) {
+            if (!isSupported(component.getType())) {
+                throw new IllegalArgumentException("Unsupported component type " + component.getType().getName()
+                    + " in " + type.getName());
+            }
+        }
+    }
+
+    @Override
+    public byte[] serialize(T value) throws SerializationException {
+        if (value == null) {
+            return null;
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(FORMAT_VERSION);
+            for (RecordComponent component : components) {
+                write(out, component.getType(), component.getAccessor().invoke(value));
+            }
+            return bytes.toByteArray();
+        } catch (Exception e) {
+            throw new SerializationException("Could not serialize " + type.getSimpleName(), e);
+        }
+    }
+
+    @Override
+    public T deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != FORMAT_VERSION) {
+            throw new SerializationException("Unknown format version " + bytes[0] + " for " + type.getSimpleName());
+        }
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 1, bytes.length - 1));
+            Object[] args = new Object[components.length];
+            for (int i = 0; i < components.length; i++) {
+                args[i] = read(in, components[i].getType());
+            }
+            return constructor.newInstance(args);
+        } catch (Exception e) {
+            throw new SerializationException("Could not deserialize " + type.getSimpleName(), e);
+        }
+    }
+
+    @Override
+    public Class<?> getTargetType() {
+        return type;
+    }
+
+    private static boolean isSupported(Class<?> type) {
+        return type == long.class || type == Long.class || type == int.class || type == Integer.class
+            || type == boolean.class || type == Boolean.class || type == double.class || type == Double.class
+            || type == String.class || type.isEnum() || type == LocalDateTime.class || type == LocalDate.class;
+    }
+
+    private static void write(DataOutputStream out, Class<?> type, Object value) throws IOException {
+        if (!type.isPrimitive()) {
+            out.writeBoolean(value != null);
+            if (value == null) {
+                return;
+            }
+        }
+        if (type == long.class || type == Long.class) {
+            writeVarLong(out, (Long) value);
+        } else if (type == int.class || type == Integer.class) {
+            writeVarLong(out, (Integer) value);
+        } else if (type == boolean.class || type == Boolean.class) {
+            out.writeBoolean((Boolean) value);
+        } else if (type == double.class || type == Double.class) {
+            out.writeDouble((Double) value);
+        } else if (type == String.class) {
+            byte[] utf8 = ((String) value).getBytes(StandardCharsets.UTF_8);
+            writeVarLong(out, utf8.length);
+            out.write(utf8);
+        } else if (type.isEnum()) {
+            writeVarLong(out, ((Enum<?>) value).ordinal());
+        } else if (type == LocalDateTime.class) {
+            LocalDateTime dateTime = (LocalDateTime) value;
+            writeVarLong(out, dateTime.toEpochSecond(ZoneOffset.UTC));
+            writeVarLong(out, dateTime.getNano());
+        } else if (type == LocalDate.class) {
+            writeVarLong(out, ((LocalDate) value).toEpochDay());
+        }
+    }
+
+    private static Object read(DataInputStream in, Class<?> type) throws IOException {
+        if (!type.isPrimitive() && !in.readBoolean()) {
+            return null;
+        }
+        if (type == long.class || type == Long.class) {
+            return readVarLong(in);
+        } else if (type == int.class || type == Integer.class) {
+            return (int) readVarLong(in);
+        } else if (type == boolean.class || type == Boolean.class) {
+            return in.readBoolean();
+        } else if (type == double.class || type == Double.class) {
+            return in.readDouble();
+        } else if (type == String.class) {
+            byte[] utf8 = new byte[(int) readVarLong(in)];
+            in.readFully(utf8);
+            return new String(utf8, StandardCharsets.UTF_8);
+        } else if (type.isEnum()) {
+            return type.getEnumConstants()[(int) readVarLong(in)];
+        } else if (type == LocalDateTime.class) {
+            long seconds = readVarLong(in);
+            int nanos = (int) readVarLong(in);
+            return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+        } else {
+            return LocalDate.ofEpochDay(readVarLong(in));
+        }
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            out.writeByte((int) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        out.writeByte((int) zigzag);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long zigzag = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.readByte();
+            zigzag |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+}
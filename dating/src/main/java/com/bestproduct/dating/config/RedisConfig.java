@@ -1,5 +1,6 @@
 package com.bestproduct.dating.config;
 
+import com.bestproduct.dating.service.MatchingService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.springframework.cache.annotation.EnableCaching;
@@ -10,7 +11,9 @@ import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
@@ -22,23 +25,10 @@ import java.time.Duration;
 @EnableCaching
 public class RedisConfig {
 
-    @Bean
-    public ObjectMapper redisObjectMapper() {
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.registerModule(new JavaTimeModule());
-        mapper.disable(com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
-        mapper.disable(com.fasterxml.jackson.databind.SerializationFeature.FAIL_ON_EMPTY_BEANS);
-        mapper.configure(com.fasterxml.jackson.databind.DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-        // mapper.configure(com.fasterxml.jackson.databind.SerializationFeature.WRITE_NULL_MAP_VALUES, false); // Deprecated
-        
-        return mapper;
-    }
-
-    @Bean
-    public GenericJackson2JsonRedisSerializer jsonRedisSerializer(ObjectMapper redisObjectMapper) {
-        return new GenericJackson2JsonRedisSerializer(redisObjectMapper);
-    }
-    
+    /**
+     * JSON-сериализатор для значений общего назначения (кэш Spring, redisTemplate).
+     * Для горячих ключей используются отдельные шаблоны с компактными кодеками ниже.
+     */
     @Bean
     public GenericJackson2JsonRedisSerializer customJsonRedisSerializer() {
         ObjectMapper mapper = new ObjectMapper();
@@ -46,7 +36,6 @@ public class RedisConfig {
         mapper.disable(com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
         mapper.disable(com.fasterxml.jackson.databind.SerializationFeature.FAIL_ON_EMPTY_BEANS);
         mapper.configure(com.fasterxml.jackson.databind.DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-        // mapper.configure(com.fasterxml.jackson.databind.SerializationFeature.WRITE_NULL_MAP_VALUES, false); // Deprecated
         
         return new GenericJackson2JsonRedisSerializer(mapper);
     }
@@ -69,6 +58,32 @@ public class RedisConfig {
         return template;
     }
 
+    /**
+     * Счетчики: значение хранится десятичной строкой, поэтому INCR/INCRBY работают без преобразований
+     */
+    @Bean
+    public RedisTemplate<String, Long> longRedisTemplate(RedisConnectionFactory connectionFactory) {
+        return typedTemplate(connectionFactory, new GenericToStringSerializer<>(Long.class));
+    }
+
+    @Bean
+    public RedisTemplate<String, MatchingService.MatchingStatistics> matchingStatisticsRedisTemplate(
+            RedisConnectionFactory connectionFactory) {
+        return typedTemplate(connectionFactory, new RecordBinaryRedisSerializer<>(MatchingService.MatchingStatistics.class));
+    }
+
+    private static <V> RedisTemplate<String, V> typedTemplate(RedisConnectionFactory connectionFactory,
+                                                              RedisSerializer<V> valueSerializer) {
+        RedisTemplate<String, V> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setHashKeySerializer(new StringRedisSerializer());
+        template.setValueSerializer(valueSerializer);
+        template.setHashValueSerializer(valueSerializer);
+        template.afterPropertiesSet();
+        return template;
+    }
+
     @Bean
     public RedisCacheManager cacheManager(RedisConnectionFactory connectionFactory, 
                                         GenericJackson2JsonRedisSerializer customJsonRedisSerializer) {
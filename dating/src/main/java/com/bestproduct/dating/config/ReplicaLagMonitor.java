@@ -0,0 +1,66 @@
+package com.bestproduct.dating.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+
+/**
+ * Периодически проверяет отставание реплики.
+ * Пока реплика доступна и отстает не больше maxLagSeconds, readOnly-транзакции идут на нее.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    // Если реплика применила все полученные WAL, отставание считается нулевым,
+    // иначе время последней проигранной транзакции на простаивающем primary давало бы ложное отставание
+    private static final String LAG_QUERY =
+        "SELECT CASE " +
+        "  WHEN NOT pg_is_in_recovery() THEN 0 " +
+        "  WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+        "  ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) " +
+        "END";
+
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final int maxLagSeconds;
+
+    private volatile double lagSeconds = -1;
+    private volatile boolean replicaAvailable = false;
+
+    public ReplicaLagMonitor(DataSource replicaDataSource, int maxLagSeconds, MeterRegistry meterRegistry) {
+        this.replicaJdbcTemplate = new JdbcTemplate(replicaDataSource);
+        this.maxLagSeconds = maxLagSeconds;
+        Gauge.builder("db.replica.lag.seconds", this, monitor -> monitor.lagSeconds)
+            .description("Отставание реплики (-1 если реплика недоступна)")
+            .register(meterRegistry);
+        Gauge.builder("db.replica.available", this, monitor -> monitor.replicaAvailable ? 1 : 0)
+            .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.lag-check-interval-ms:5000}")
+    public void checkLag() {
+        try {
+            Double lag = replicaJdbcTemplate.queryForObject(LAG_QUERY, Double.class);
+            lagSeconds = lag != null ? lag : 0;
+            boolean available = lagSeconds <= maxLagSeconds;
+            if (available != replicaAvailable) {
+                log.warn("Replica {} (lag {}s, max {}s)", available ? "enabled for reads" : "disabled for reads",
+                    lagSeconds, maxLagSeconds);
+            }
+            replicaAvailable = available;
+        } catch (Exception e) {
+            if (replicaAvailable) {
+                log.warn("Replica is unreachable, routing reads to primary: {}", e.getMessage());
+            }
+            lagSeconds = -1;
+            replicaAvailable = false;
+        }
+    }
+
+    public boolean isReplicaAvailable() {
+        return replicaAvailable;
+    }
+}
@@ -0,0 +1,26 @@
+package com.bestproduct.dating.config;
+
+import com.bestproduct.dating.service.SlowQueryLog;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Actuator endpoint /actuator/slowqueries - последние медленные SQL-запросы (только чтение).
+ * Доступен лишь на отдельном порту management (management.server.port), который не публикуется наружу
+ */
+@Component
+@Endpoint(id = "slowqueries")
+@RequiredArgsConstructor
+public class SlowQueryEndpoint {
+
+    private final SlowQueryLog slowQueryLog;
+
+    @ReadOperation
+    public List<SlowQueryLog.SlowQuery> slowQueries() {
+        return slowQueryLog.recent();
+    }
+}
@@ -0,0 +1,50 @@
+package com.bestproduct.dating.config;
+
+import com.bestproduct.dating.util.UpdateTrace;
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * Учет времени JDBC в трассе апдейта: получение соединения (пул и квота bulkhead),
+ * выполнение запросов и пачек. Время выполнения передается и в HibernateStatementMonitor.
+ * Hibernate создает экземпляр на каждую сессию.
+ */
+public class UpdateTraceSessionListener extends BaseSessionEventListener {
+
+    private long connectionStartedAt;
+    private long statementStartedAt;
+    private long batchStartedAt;
+
+    @Override
+    public void jdbcConnectionAcquisitionStart() {
+        connectionStartedAt = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcConnectionAcquisitionEnd() {
+        UpdateTrace.record(UpdateTrace.Stage.DB, "db connection", System.nanoTime() - connectionStartedAt);
+    }
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        statementStartedAt = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        long nanos = System.nanoTime() - statementStartedAt;
+        UpdateTrace.record(UpdateTrace.Stage.DB, "db statement", nanos);
+        HibernateStatementMonitor.executed(nanos);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batchStartedAt = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        long nanos = System.nanoTime() - batchStartedAt;
+        UpdateTrace.record(UpdateTrace.Stage.DB, "db batch", nanos);
+        HibernateStatementMonitor.executed(nanos);
+    }
+}
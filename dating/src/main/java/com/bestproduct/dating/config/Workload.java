@@ -0,0 +1,42 @@
+package com.bestproduct.dating.config;
+
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * Класс нагрузки текущего потока. Используется для разделения пула соединений к БД
+ * между интерактивной обработкой апдейтов, фоновыми задачами и рассылкой уведомлений.
+ */
+public enum Workload {
+    INTERACTIVE,
+    BACKGROUND,
+    NOTIFICATION;
+
+    private static final ThreadLocal<Workload> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Класс нагрузки текущего потока (по умолчанию - интерактивная)
+     */
+    public static Workload current() {
+        Workload workload = CURRENT.get();
+        return workload != null ? workload : INTERACTIVE;
+    }
+
+    /**
+     * Декоратор задач executor'а, помечающий их этим классом нагрузки
+     */
+    public TaskDecorator taskDecorator() {
+        return runnable -> () -> {
+            Workload previous = CURRENT.get();
+            CURRENT.set(this);
+            try {
+                runnable.run();
+            } finally {
+                if (previous != null) {
+                    CURRENT.set(previous);
+                } else {
+                    CURRENT.remove();
+                }
+            }
+        };
+    }
+}
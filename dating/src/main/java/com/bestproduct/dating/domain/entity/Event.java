@@ -59,6 +59,14 @@ public class Event {
     @Builder.Default
     private Integer maxParticipants = 10;
 
+    /**
+     * Количество участников. После вставки меняется только SQL-запросами EventRepository
+     * (reserveSeat/releaseSeat), поэтому сохранение сущности его не перезаписывает
+     */
+    @Column(name = "participant_count", nullable = false, updatable = false)
+    @Builder.Default
+    private Integer participantCount = 0;
+
     @ElementCollection(fetch = FetchType.EAGER)
     @CollectionTable(name = "event_alcohol_types", joinColumns = @JoinColumn(name = "event_id"))
     @Enumerated(EnumType.STRING)
@@ -145,7 +153,7 @@ public class Event {
      * Проверка, есть ли свободные места
      */
     public boolean hasAvailableSlots() {
-        return participants.size() < maxParticipants;
+        return participantCount < maxParticipants;
     }
 
     /**
@@ -163,21 +171,16 @@ public class Event {
     }
 
     /**
-     * Добавить участника
+     * Добавить участника в новое, еще не сохраненное событие.
+     * Для существующих событий используется EventRepository.reserveSeat/insertParticipant
      */
     public boolean addParticipant(User user) {
-        if (hasAvailableSlots()) {
-            return participants.add(user);
+        if (hasAvailableSlots() && participants.add(user)) {
+            participantCount++;
+            return true;
         }
         return false;
     }
-
-    /**
-     * Удалить участника
-     */
-    public boolean removeParticipant(User user) {
-        return participants.remove(user);
-    }
 }
 
 
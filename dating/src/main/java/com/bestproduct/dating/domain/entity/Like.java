@@ -7,7 +7,8 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 
 /**
- * Сущность лайка (свайпа вправо) между пользователями
+ * Сущность лайка (свайпа вправо) между пользователями.
+ * Таблица партиционирована по created_at, поэтому уникальность пары обеспечивается приложением.
  */
 @Entity
 @Table(name = "likes", indexes = {
@@ -15,7 +16,7 @@ import java.time.LocalDateTime;
     @Index(name = "idx_to_user", columnList = "to_user_id"),
     @Index(name = "idx_created_at", columnList = "created_at")
 }, uniqueConstraints = {
-    @UniqueConstraint(name = "uk_like_from_to", columnNames = {"from_user_id", "to_user_id"})
+    @UniqueConstraint(name = "uk_like_from_to", columnNames = {"from_user_id", "to_user_id", "created_at"})
 })
 @Getter
 @Setter
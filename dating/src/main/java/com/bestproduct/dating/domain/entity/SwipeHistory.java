@@ -7,16 +7,18 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 
 /**
- * История свайпов пользователя (лайк/дизлайк/скип)
+ * История свайпов пользователя (лайк/дизлайк/скип).
+ * Таблица партиционирована по created_at, поэтому уникальность пары обеспечивается приложением.
  */
 @Entity
 @Table(name = "swipe_history", indexes = {
     @Index(name = "idx_swipe_from_user", columnList = "from_user_id"),
+    @Index(name = "idx_swipe_from_user_created", columnList = "from_user_id, created_at"),
     @Index(name = "idx_swipe_to_user", columnList = "to_user_id"),
     @Index(name = "idx_swipe_created_at", columnList = "created_at"),
     @Index(name = "idx_swipe_type", columnList = "swipe_type")
 }, uniqueConstraints = {
-    @UniqueConstraint(name = "uk_swipe_from_to", columnNames = {"from_user_id", "to_user_id"})
+    @UniqueConstraint(name = "uk_swipe_from_to", columnNames = {"from_user_id", "to_user_id", "created_at"})
 })
 @Getter
 @Setter
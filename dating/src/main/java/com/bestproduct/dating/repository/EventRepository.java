@@ -4,28 +4,54 @@ import com.bestproduct.dating.domain.entity.Event;
 import org.locationtech.jts.geom.Point;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface EventRepository extends JpaRepository<Event, Long> {
     
     List<Event> findByStatus(Event.EventStatus status);
     
-    @Query(value = "SELECT e.* FROM events e " +
+    /**
+     * Облегченная строка события для списков: без сущностей организатора и участников
+     */
+    interface EventCardView {
+        Long getId();
+        Long getOrganizerId();
+        String getTitle();
+        String getLocationName();
+        LocalDateTime getEventDate();
+        Integer getParticipantCount();
+        Integer getMaxParticipants();
+        Double getLatitude();
+        Double getLongitude();
+    }
+
+    /**
+     * Публичные предстоящие события в радиусе от точки, ближайшие к ней.
+     * Условия совпадают с частичным индексом idx_event_upcoming_public_geog
+     */
+    @Query(value = "SELECT e.id AS \"id\", e.organizer_id AS \"organizerId\", e.title AS \"title\", " +
+           "e.location_name AS \"locationName\", e.event_date AS \"eventDate\", " +
+           "e.participant_count AS \"participantCount\", e.max_participants AS \"maxParticipants\", " +
+           "ST_Y(e.location) AS \"latitude\", ST_X(e.location) AS \"longitude\" " +
+           "FROM events e " +
            "WHERE e.status = 'UPCOMING' " +
            "AND e.is_public = true " +
            "AND e.event_date > :now " +
-           "AND ST_DWithin(e.location::geography, CAST(:userLocation AS geography), :radiusMeters) " +
-           "ORDER BY ST_Distance(e.location::geography, CAST(:userLocation AS geography)) " +
+           "AND ST_DWithin(e.location::geography, CAST(:center AS geography), :radiusMeters) " +
+           "ORDER BY e.location::geography <-> CAST(:center AS geography) " +
            "LIMIT :limit",
            nativeQuery = true)
-    List<Event> findNearbyUpcomingEvents(
-        @Param("userLocation") Point userLocation,
+    List<EventCardView> findUpcomingCardsNear(
+        @Param("center") Point center,
         @Param("radiusMeters") double radiusMeters,
         @Param("now") LocalDateTime now,
         @Param("limit") int limit
@@ -35,8 +61,91 @@ public interface EventRepository extends JpaRepository<Event, Long> {
     @Query("SELECT e FROM Event e WHERE e.eventDate BETWEEN :start AND :end AND e.status = 'UPCOMING'")
     List<Event> findUpcomingEventsBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
     
+    @EntityGraph(attributePaths = {"participants"})
+    @Query("SELECT e FROM Event e WHERE e.id IN :ids AND e.status = 'UPCOMING'")
+    List<Event> findUpcomingWithParticipantsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Перевести начавшиеся события в IN_PROGRESS (версия увеличивается вручную - bulk UPDATE обходит @Version)
+     */
+    @Modifying
+    @Query("UPDATE Event e SET e.status = 'IN_PROGRESS', e.version = e.version + 1, e.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE e.status = 'UPCOMING' AND e.eventDate <= :now")
+    int markStarted(@Param("now") LocalDateTime now);
+
+    /**
+     * Завершить события, начавшиеся раньше startedBefore
+     */
+    @Modifying
+    @Query("UPDATE Event e SET e.status = 'COMPLETED', e.version = e.version + 1, e.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE e.status IN ('UPCOMING', 'IN_PROGRESS') AND e.eventDate <= :startedBefore")
+    int markCompleted(@Param("startedBefore") LocalDateTime startedBefore);
+
+    /**
+     * Занять место в событии, если оно еще не заполнено
+     *
+     * @return 1, если место занято, 0 - если мест нет или событие уже не UPCOMING
+     */
+    @Modifying
+    @Query(value = "UPDATE events SET participant_count = participant_count + 1 " +
+                   "WHERE id = :eventId AND status = 'UPCOMING' AND participant_count < max_participants",
+           nativeQuery = true)
+    int reserveSeat(@Param("eventId") Long eventId);
+
+    @Modifying
+    @Query(value = "UPDATE events SET participant_count = participant_count - 1 " +
+                   "WHERE id = :eventId AND participant_count > 0",
+           nativeQuery = true)
+    int releaseSeat(@Param("eventId") Long eventId);
+
+    /**
+     * @return 0, если пользователь уже участник
+     */
+    @Modifying
+    @Query(value = "INSERT INTO event_participants (event_id, user_id) VALUES (:eventId, :userId) ON CONFLICT DO NOTHING",
+           nativeQuery = true)
+    int insertParticipant(@Param("eventId") Long eventId, @Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = "DELETE FROM event_participants WHERE event_id = :eventId AND user_id = :userId",
+           nativeQuery = true)
+    int deleteParticipant(@Param("eventId") Long eventId, @Param("userId") Long userId);
+
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM event_participants WHERE event_id = :eventId AND user_id = :userId)",
+           nativeQuery = true)
+    boolean isParticipant(@Param("eventId") Long eventId, @Param("userId") Long userId);
+
+    @Query("SELECT e.participantCount FROM Event e WHERE e.id = :eventId")
+    int getParticipantCount(@Param("eventId") Long eventId);
+
     @Query("SELECT COUNT(e) FROM Event e WHERE e.organizer.id = :userId AND e.status IN ('UPCOMING', 'IN_PROGRESS')")
     long countActiveEventsByOrganizer(@Param("userId") Long userId);
+
+    boolean existsByOrganizerIdAndStatus(Long organizerId, Event.EventStatus status);
+
+    @EntityGraph(attributePaths = {"participants"})
+    Optional<Event> findByIdAndOrganizerId(Long id, Long organizerId);
+
+    /**
+     * Строка списка "Мои события" без графа сущностей
+     */
+    interface OrganizedEventView {
+        Long getId();
+        String getTitle();
+        Integer getParticipantCount();
+        Integer getMaxParticipants();
+        Event.EventStatus getStatus();
+    }
+
+    @Query("SELECT e.id AS id, e.title AS title, e.participantCount AS participantCount, " +
+           "e.maxParticipants AS maxParticipants, e.status AS status " +
+           "FROM Event e WHERE e.organizer.id = :userId ORDER BY e.eventDate DESC")
+    List<OrganizedEventView> findOrganizedEventViews(@Param("userId") Long userId);
+
+    @Query(value = "SELECT COUNT(*) FROM event_participants ep JOIN events e ON e.id = ep.event_id " +
+                   "WHERE ep.user_id = :userId AND e.status = 'UPCOMING'",
+           nativeQuery = true)
+    long countUpcomingParticipations(@Param("userId") Long userId);
     
     @EntityGraph(attributePaths = {"organizer", "participants"})
     List<Event> findByOrganizerId(Long organizerId);
@@ -14,9 +14,10 @@ import java.util.Optional;
 public interface LikeRepository extends JpaRepository<Like, Long> {
 
     /**
-     * Найти лайк между двумя пользователями
+     * Найти последний лайк между двумя пользователями
+     * (в партиционированной таблице пара может повторяться в разных партициях)
      */
-    Optional<Like> findByFromUserIdAndToUserId(Long fromUserId, Long toUserId);
+    Optional<Like> findFirstByFromUserIdAndToUserIdOrderByCreatedAtDesc(Long fromUserId, Long toUserId);
 
     /**
      * Найти все лайки отправленные пользователем
@@ -2,6 +2,7 @@ package com.bestproduct.dating.repository;
 
 import com.bestproduct.dating.domain.entity.Notification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -19,8 +20,39 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     @Query("SELECT COUNT(n) FROM Notification n WHERE n.user.id = :userId AND n.isRead = false")
     long countUnreadNotificationsByUserId(@Param("userId") Long userId);
     
+    /**
+     * Пометить все непрочитанные уведомления пользователя одним UPDATE (без загрузки сущностей)
+     */
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE notifications SET is_read = true, read_at = now() " +
+           "WHERE user_id = :userId AND is_read = false",
+           nativeQuery = true)
+    int markAllAsReadByUserId(@Param("userId") Long userId);
+    
+    /**
+     * Пометить все непрочитанные уведомления прочитанными и вернуть самые свежие для дайджеста.
+     * UPDATE выполняется для всех строк, наружу отдаются только первые :limit и общее количество.
+     */
+    @Query(value = "WITH marked AS (" +
+           "    UPDATE notifications SET is_read = true, read_at = now() " +
+           "    WHERE user_id = :userId AND is_read = false " +
+           "    RETURNING id, title, message, created_at" +
+           ") " +
+           "SELECT id, title, message, COUNT(*) OVER () AS total FROM marked " +
+           "ORDER BY created_at DESC " +
+           "LIMIT :limit",
+           nativeQuery = true)
+    List<UnreadDigestRow> markAllAsReadReturningDigest(@Param("userId") Long userId, @Param("limit") int limit);
+    
     void deleteByUserId(Long userId);
-}
-
-
 
+    /**
+     * Строка дайджеста непрочитанных уведомлений
+     */
+    interface UnreadDigestRow {
+        Long getId();
+        String getTitle();
+        String getMessage();
+        long getTotal();
+    }
+}
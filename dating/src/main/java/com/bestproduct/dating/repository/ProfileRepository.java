@@ -27,6 +27,7 @@ public interface ProfileRepository extends JpaRepository<Profile, Long> {
            "AND NOT EXISTS (" +
            "    SELECT 1 FROM swipe_history sh " +
            "    WHERE sh.from_user_id = :userId AND sh.to_user_id = p.user_id " +
+           "    AND sh.created_at >= CURRENT_TIMESTAMP - INTERVAL '4 days' " +
            "    AND ((sh.swipe_type IN ('LIKE', 'SUPER_LIKE') AND sh.created_at >= CURRENT_TIMESTAMP - INTERVAL '4 days') " +
            "         OR (sh.swipe_type = 'DISLIKE' AND sh.created_at >= CURRENT_TIMESTAMP - INTERVAL '1 day'))" +
            ") " +
@@ -39,6 +40,41 @@ public interface ProfileRepository extends JpaRepository<Profile, Long> {
         @Param("limit") int limit
     );
     
+    /**
+     * Кандидат для свайпа: ID и версия карточки без загрузки сущностей.
+     * Версия карточки - сумма версий профиля и пользователя, растет при любом изменении любого из них
+     */
+    interface SwipeCandidateView {
+        Long getProfileId();
+        Long getCardVersion();
+    }
+
+    /**
+     * Те же условия, что и в findNearbyProfiles; местоположение смотрящего берется подзапросом
+     */
+    @Query(value = "SELECT p.id AS \"profileId\", p.version + u.version AS \"cardVersion\" " +
+           "FROM profiles p " +
+           "JOIN users u ON u.id = p.user_id " +
+           "JOIN profiles me ON me.user_id = :userId AND me.location IS NOT NULL " +
+           "WHERE p.is_visible = true " +
+           "AND p.user_id != :userId " +
+           "AND p.location IS NOT NULL " +
+           "AND EXISTS (" +
+           "    SELECT 1 FROM profile_photos pp " +
+           "    WHERE pp.profile_id = p.id" +
+           ") " +
+           "AND NOT EXISTS (" +
+           "    SELECT 1 FROM swipe_history sh " +
+           "    WHERE sh.from_user_id = :userId AND sh.to_user_id = p.user_id " +
+           "    AND sh.created_at >= CURRENT_TIMESTAMP - INTERVAL '4 days' " +
+           "    AND ((sh.swipe_type IN ('LIKE', 'SUPER_LIKE') AND sh.created_at >= CURRENT_TIMESTAMP - INTERVAL '4 days') " +
+           "         OR (sh.swipe_type = 'DISLIKE' AND sh.created_at >= CURRENT_TIMESTAMP - INTERVAL '1 day'))" +
+           ") " +
+           "ORDER BY ST_Distance(p.location::geography, me.location::geography) ASC " +
+           "LIMIT :limit",
+           nativeQuery = true)
+    List<SwipeCandidateView> findSwipeCandidates(@Param("userId") Long userId, @Param("limit") int limit);
+    
     @EntityGraph(attributePaths = {"user"})
     @Query("SELECT p FROM Profile p WHERE p.id IN :profileIds")
     List<Profile> findByIdsWithUser(@Param("profileIds") List<Long> profileIds);
@@ -2,6 +2,7 @@ package com.bestproduct.dating.repository;
 
 import com.bestproduct.dating.domain.entity.SwipeHistory;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -14,9 +15,26 @@ import java.util.Optional;
 public interface SwipeHistoryRepository extends JpaRepository<SwipeHistory, Long> {
     
     /**
-     * Найти свайп между двумя пользователями
+     * Найти последний свайп между двумя пользователями
+     * (в партиционированной таблице пара может повторяться в разных партициях)
      */
-    Optional<SwipeHistory> findByFromUserIdAndToUserId(Long fromUserId, Long toUserId);
+    Optional<SwipeHistory> findFirstByFromUserIdAndToUserIdOrderByCreatedAtDesc(Long fromUserId, Long toUserId);
+
+    /**
+     * Занять пару в swipe_pairs. Параллельная вставка той же пары ждет коммита первой и ничего не вставляет
+     *
+     * @return 1, если пара занята этим вызовом, 0 - если свайп уже был
+     */
+    @Modifying
+    @Query(value = "INSERT INTO swipe_pairs (from_user_id, to_user_id, swipe_type) VALUES (:fromUserId, :toUserId, :swipeType) " +
+                   "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int claimPair(@Param("fromUserId") Long fromUserId, @Param("toUserId") Long toUserId,
+                  @Param("swipeType") String swipeType);
+
+    /**
+     * Проверить существование свайпа между пользователями
+     */
+    boolean existsByFromUserIdAndToUserId(Long fromUserId, Long toUserId);
     
     /**
      * Найти все свайпы пользователя после определенной даты
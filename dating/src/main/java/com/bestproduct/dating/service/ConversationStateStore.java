@@ -0,0 +1,274 @@
+package com.bestproduct.dating.service;
+
+import com.bestproduct.dating.util.OldestEntries;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * Хранилище состояния диалога (шаг мастера регистрации/создания события и введенные данные).
+ * Все состояние пользователя хранится одним Redis hash "conversation:{telegramId}" с общим TTL.
+ * Изменения применяются атомарно через Lua-скрипт с проверкой версии (optimistic locking).
+ * Последнее известное состояние держится в локальном near-cache, поэтому проверка
+ * "находится ли пользователь в мастере" для обычных сообщений не ходит в Redis.
+ * Near-cache корректен, пока апдейты бота обрабатывает один экземпляр (long polling).
+ * Пока Redis недоступен, состояние читается и изменяется только в near-cache. Такие записи не вытесняются
+ * при переполнении и после восстановления Redis записываются в него поверх текущей версии:
+ * изменения, сделанные во время недоступности, важнее.
+ */
+@Service
+@Slf4j
+public class ConversationStateStore {
+
+    private static final String KEY_PREFIX = "conversation:";
+    private static final String VERSION_FIELD = "v";
+    private static final String STEP_FIELD = "step";
+    private static final String DATA_PREFIX = "d:";
+    private static final Duration STATE_TTL = Duration.ofMinutes(30);
+    private static final Duration NEAR_CACHE_TTL = Duration.ofMinutes(5);
+    private static final int NEAR_CACHE_MAX_SIZE = 100_000;
+    private static final int NEAR_CACHE_EVICTION_BATCH = NEAR_CACHE_MAX_SIZE / 10;
+    private static final int MAX_UPDATE_ATTEMPTS = 5;
+
+    // ARGV[1] - ожидаемая версия, ARGV[2] - TTL в секундах, далее пары поле/значение нового состояния.
+    // Возвращает новую версию или -1 при конфликте
+    private static final DefaultRedisScript<Long> COMPARE_AND_SET = new DefaultRedisScript<>(
+        "local current = tonumber(redis.call('HGET', KEYS[1], 'v') or '0') " +
+        "if current ~= tonumber(ARGV[1]) then return -1 end " +
+        "redis.call('DEL', KEYS[1]) " +
+        "local next = current + 1 " +
+        "redis.call('HSET', KEYS[1], 'v', next) " +
+        "for i = 3, #ARGV, 2 do redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1]) end " +
+        "redis.call('EXPIRE', KEYS[1], ARGV[2]) " +
+        "return next",
+        Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisCircuitBreaker redisCircuitBreaker;
+    private final Map<Long, CachedState> nearCache = new ConcurrentHashMap<>();
+
+    public ConversationStateStore(StringRedisTemplate stringRedisTemplate, RedisCircuitBreaker redisCircuitBreaker) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.redisCircuitBreaker = redisCircuitBreaker;
+    }
+
+    /**
+     * Снимок состояния диалога
+     */
+    public record State(String step, Map<String, String> data, long version) {
+
+        public static final State EMPTY = new State(null, Map.of(), 0);
+
+        public String get(String field) {
+            return data.get(field);
+        }
+
+        public State withStep(String newStep) {
+            return new State(newStep, data, version);
+        }
+
+        public State with(String field, String value) {
+            Map<String, String> newData = new HashMap<>(data);
+            if (value != null) {
+                newData.put(field, value);
+            } else {
+                newData.remove(field);
+            }
+            return new State(step, Collections.unmodifiableMap(newData), version);
+        }
+
+        public State without(String... fields) {
+            Map<String, String> newData = new HashMap<>(data);
+            for (String field : fields) {
+                newData.remove(field);
+            }
+            return new State(step, Collections.unmodifiableMap(newData), version);
+        }
+    }
+
+    /**
+     * @param localOnly состояние изменено, пока Redis был недоступен, и есть только в near-cache
+     */
+    private record CachedState(State state, long expiresAt, boolean localOnly) {
+    }
+
+    /**
+     * Получить состояние (из near-cache, при промахе - одним HGETALL)
+     */
+    public State get(Long telegramId) {
+        CachedState cached = nearCache.get(telegramId);
+        if (cached != null && cached.expiresAt() > System.currentTimeMillis()) {
+            return cached.state();
+        }
+        // Без Redis используем последнее известное (пусть и устаревшее) состояние
+        return redisCircuitBreaker.execute(() -> load(telegramId),
+            () -> cached != null ? cached.state() : State.EMPTY);
+    }
+
+    /**
+     * Текущий шаг мастера или null
+     */
+    public String getStep(Long telegramId) {
+        return get(telegramId).step();
+    }
+
+    public void setStep(Long telegramId, String step) {
+        update(telegramId, state -> state.withStep(step));
+    }
+
+    public void clearStep(Long telegramId) {
+        update(telegramId, state -> state.withStep(null));
+    }
+
+    public void setData(Long telegramId, String field, String value) {
+        update(telegramId, state -> state.with(field, value));
+    }
+
+    public void clearData(Long telegramId, String... fields) {
+        update(telegramId, state -> state.without(fields));
+    }
+
+    /**
+     * Полностью очистить состояние диалога
+     */
+    public void clear(Long telegramId) {
+        update(telegramId, state -> State.EMPTY);
+    }
+
+    /**
+     * Атомарно применить изменение к состоянию. При конфликте версий состояние перечитывается
+     * из Redis и изменение применяется повторно.
+     */
+    public State update(Long telegramId, UnaryOperator<State> mutation) {
+        return redisCircuitBreaker.execute(() -> updateInRedis(telegramId, mutation),
+            () -> updateLocally(telegramId, mutation));
+    }
+
+    private State updateInRedis(Long telegramId, UnaryOperator<State> mutation) {
+        CachedState cached = nearCache.get(telegramId);
+        State local = cached != null && cached.localOnly() ? cached.state() : null;
+        State current = local != null ? rebase(telegramId, local) : get(telegramId);
+        for (int attempt = 0; attempt < MAX_UPDATE_ATTEMPTS; attempt++) {
+            State next = mutation.apply(current);
+            Long newVersion = stringRedisTemplate.execute(COMPARE_AND_SET,
+                List.of(KEY_PREFIX + telegramId), toArgs(current.version(), next));
+            if (newVersion != null && newVersion >= 0) {
+                State stored = new State(next.step(), next.data(), newVersion);
+                cache(telegramId, stored);
+                return stored;
+            }
+            log.debug("Conversation state version conflict for {}, retrying", telegramId);
+            current = local != null ? rebase(telegramId, local) : load(telegramId);
+        }
+        throw new IllegalStateException("Could not update conversation state for " + telegramId);
+    }
+
+    /**
+     * Изменение только в near-cache на время недоступности Redis (живет весь TTL состояния)
+     */
+    private State updateLocally(Long telegramId, UnaryOperator<State> mutation) {
+        CachedState cached = nearCache.get(telegramId);
+        State next = mutation.apply(cached != null ? cached.state() : State.EMPTY);
+        put(telegramId, new CachedState(next, System.currentTimeMillis() + STATE_TTL.toMillis(), true));
+        return next;
+    }
+
+    /**
+     * Локальное состояние поверх версии, которая сейчас в Redis: CAS перезапишет его целиком
+     */
+    private State rebase(Long telegramId, State local) {
+        Object version = stringRedisTemplate.opsForHash().get(KEY_PREFIX + telegramId, VERSION_FIELD);
+        return new State(local.step(), local.data(), version != null ? Long.parseLong(version.toString()) : 0);
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        nearCache.values().removeIf(cached -> cached.expiresAt() <= now);
+    }
+
+    /**
+     * Записать в Redis состояния, измененные во время его недоступности
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void syncLocalOnly() {
+        if (!redisCircuitBreaker.isAvailable()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        nearCache.forEach((telegramId, cached) -> {
+            if (cached.localOnly() && cached.expiresAt() > now) {
+                update(telegramId, UnaryOperator.identity());
+            }
+        });
+    }
+
+    private State load(Long telegramId) {
+        Map<Object, Object> entries = stringRedisTemplate.opsForHash().entries(KEY_PREFIX + telegramId);
+        State state = entries.isEmpty() ? State.EMPTY : fromHash(entries);
+        cache(telegramId, state);
+        return state;
+    }
+
+    private void cache(Long telegramId, State state) {
+        put(telegramId, new CachedState(state, System.currentTimeMillis() + NEAR_CACHE_TTL.toMillis(), false));
+    }
+
+    /**
+     * Положить запись в near-cache; при переполнении вытесняются самые старые записи, кроме локальных
+     */
+    private void put(Long telegramId, CachedState cached) {
+        if (nearCache.size() >= NEAR_CACHE_MAX_SIZE) {
+            evictExpired();
+            if (nearCache.size() >= NEAR_CACHE_MAX_SIZE) {
+                OldestEntries.evict(nearCache, NEAR_CACHE_EVICTION_BATCH, CachedState::expiresAt,
+                    entry -> !entry.localOnly());
+            }
+        }
+        nearCache.put(telegramId, cached);
+    }
+
+    private State fromHash(Map<Object, Object> entries) {
+        String step = null;
+        long version = 0;
+        Map<String, String> data = new HashMap<>();
+        for (Map.Entry<Object, Object> entry : entries.entrySet()) {
+            String field = entry.getKey().toString();
+            String value = entry.getValue().toString();
+            if (VERSION_FIELD.equals(field)) {
+                version = Long.parseLong(value);
+            } else if (STEP_FIELD.equals(field)) {
+                step = value;
+            } else if (field.startsWith(DATA_PREFIX)) {
+                data.put(field.substring(DATA_PREFIX.length()), value);
+            }
+        }
+        return new State(step, Collections.unmodifiableMap(data), version);
+    }
+
+    private Object[] toArgs(long expectedVersion, State state) {
+        List<String> args = new ArrayList<>();
+        args.add(Long.toString(expectedVersion));
+        args.add(Long.toString(STATE_TTL.toSeconds()));
+        if (state.step() != null) {
+            args.add(STEP_FIELD);
+            args.add(state.step());
+        }
+        state.data().forEach((field, value) -> {
+            args.add(DATA_PREFIX + field);
+            args.add(value);
+        });
+        return args.toArray();
+    }
+}
@@ -2,25 +2,38 @@ package com.bestproduct.dating.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Supplier;
 
 /**
- * Сервис для работы с распределенными блокировками через Redis
+ * Сервис для работы с распределенными блокировками через Redis.
+ * Пока Redis недоступен, используются локальные блокировки (striped ReentrantLock) -
+ * этого достаточно, пока апдейты обрабатывает один экземпляр бота.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class DistributedLockService {
 
-    private final RedisTemplate<String, Object> redisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisCircuitBreaker redisCircuitBreaker;
     
     private static final Duration DEFAULT_LOCK_TIMEOUT = Duration.ofSeconds(10);
     private static final Duration DEFAULT_WAIT_TIMEOUT = Duration.ofSeconds(5);
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) else return 0 end",
+        Long.class);
+    private static final int LOCAL_LOCK_STRIPES = 256;
+
+    private final ReentrantLock[] localLocks = createLocalLocks();
 
     /**
      * Выполнить операцию с блокировкой
@@ -43,8 +56,13 @@ public class DistributedLockService {
         try {
             // Попытка получить блокировку с повторами
             while (System.currentTimeMillis() < waitUntil) {
-                Boolean success = redisTemplate.opsForValue()
-                    .setIfAbsent(fullKey, lockValue, lockTimeout);
+                Boolean success = redisCircuitBreaker.execute(
+                    () -> stringRedisTemplate.opsForValue().setIfAbsent(fullKey, lockValue, lockTimeout),
+                    () -> null);
+                if (success == null) {
+                    long remainingMs = Math.max(0, waitUntil - System.currentTimeMillis());
+                    return executeWithLocalLock(lockKey, Duration.ofMillis(remainingMs), operation);
+                }
                     
                 if (Boolean.TRUE.equals(success)) {
                     acquired = true;
@@ -92,8 +110,12 @@ public class DistributedLockService {
         String lockValue = UUID.randomUUID().toString();
         String fullKey = "lock:" + lockKey;
         
-        Boolean success = redisTemplate.opsForValue()
-            .setIfAbsent(fullKey, lockValue, lockTimeout);
+        Boolean success = redisCircuitBreaker.execute(
+            () -> stringRedisTemplate.opsForValue().setIfAbsent(fullKey, lockValue, lockTimeout),
+            () -> null);
+        if (success == null) {
+            return executeWithLocalLock(lockKey, Duration.ZERO, operation);
+        }
             
         if (!Boolean.TRUE.equals(success)) {
             throw new IllegalStateException("Could not acquire lock immediately: " + lockKey);
@@ -112,10 +134,10 @@ public class DistributedLockService {
      */
     private void releaseLock(String fullKey, String lockValue) {
         try {
-            // Проверяем, что блокировка все еще принадлежит нам перед удалением
-            Object currentValue = redisTemplate.opsForValue().get(fullKey);
-            if (lockValue.equals(currentValue)) {
-                redisTemplate.delete(fullKey);
+            // Проверка владельца и удаление одним атомарным вызовом (без Redis блокировка истечет по TTL)
+            Long released = redisCircuitBreaker.execute(
+                () -> stringRedisTemplate.execute(RELEASE_SCRIPT, List.of(fullKey), lockValue), () -> 0L);
+            if (released != null && released > 0) {
                 log.debug("Lock released: {}", fullKey);
             }
         } catch (Exception e) {
@@ -123,12 +145,44 @@ public class DistributedLockService {
         }
     }
 
+    /**
+     * Выполнить операцию под локальной блокировкой (fallback при недоступном Redis)
+     */
+    private <T> T executeWithLocalLock(String lockKey, Duration waitTimeout, Supplier<T> operation) {
+        ReentrantLock lock = localLocks[Math.floorMod(lockKey.hashCode(), LOCAL_LOCK_STRIPES)];
+        boolean acquired;
+        try {
+            acquired = lock.tryLock(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Lock acquisition interrupted", e);
+        }
+        if (!acquired) {
+            throw new IllegalStateException("Could not acquire local lock: " + lockKey);
+        }
+        try {
+            log.debug("Local lock acquired: {}", lockKey);
+            return operation.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static ReentrantLock[] createLocalLocks() {
+        ReentrantLock[] locks = new ReentrantLock[LOCAL_LOCK_STRIPES];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        return locks;
+    }
+
     /**
      * Проверить, заблокирован ли ключ
      */
     public boolean isLocked(String lockKey) {
         String fullKey = "lock:" + lockKey;
-        return Boolean.TRUE.equals(redisTemplate.hasKey(fullKey));
+        return Boolean.TRUE.equals(redisCircuitBreaker.execute(
+            () -> stringRedisTemplate.hasKey(fullKey), () -> false));
     }
 
     /**
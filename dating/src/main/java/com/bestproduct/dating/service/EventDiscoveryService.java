@@ -0,0 +1,132 @@
+package com.bestproduct.dating.service;
+
+import com.bestproduct.dating.config.AppConfig;
+import com.bestproduct.dating.repository.EventRepository;
+import com.bestproduct.dating.util.GeoHash;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.PrecisionModel;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Поиск событий поблизости через кэш тайлов.
+ * Карта делится на тайлы геохеша; для тайла и временного окна один раз выбираются события
+ * в радиусе, покрывающем любую точку тайла, и результат кэшируется в Redis для всех пользователей тайла.
+ * Точный радиус, сортировка по расстоянию и отсечение уже начавшихся событий считаются в памяти.
+ * Если тайл заполнен до tile-fetch-limit, он может быть неполным - тогда запрос идет напрямую от точки пользователя.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EventDiscoveryService {
+
+    private static final String TILE_PREFIX = "events:tile:";
+    private static final TypeReference<List<EventCard>> CARDS_TYPE = new TypeReference<>() {};
+    private static final GeometryFactory geometryFactory = new GeometryFactory(new PrecisionModel(), 4326);
+
+    private final EventRepository eventRepository;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisCircuitBreaker redisCircuitBreaker;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final AppConfig appConfig;
+
+    /**
+     * Карточка события для списка: только поля, нужные для вывода, и счетчик участников
+     */
+    public record EventCard(Long id, Long organizerId, String title, String locationName, LocalDateTime eventDate,
+                            int participantCount, int maxParticipants, double latitude, double longitude) {
+
+        public boolean isOrganizer(Long userId) {
+            return organizerId.equals(userId);
+        }
+    }
+
+    /**
+     * Найти ближайшие предстоящие публичные события
+     */
+    public List<EventCard> findNearby(Point location, int radiusKm, int limit) {
+        double latitude = location.getY();
+        double longitude = location.getX();
+        double radiusMeters = radiusKm * 1000.0;
+        LocalDateTime now = LocalDateTime.now();
+
+        AppConfig.Events.Discovery config = appConfig.getEvents().getDiscovery();
+        List<EventCard> tile = loadTile(GeoHash.cell(latitude, longitude, config.getTilePrecision()), radiusKm);
+        if (tile.size() >= config.getTileFetchLimit()) {
+            // Тайл обрезан лимитом по расстоянию до центра: события в радиусе пользователя,
+            // но далекие от центра тайла, могли в него не попасть
+            meterRegistry.counter("events.discovery.tile", "result", "truncated").increment();
+            return toCards(eventRepository.findUpcomingCardsNear(location, radiusMeters, now, limit));
+        }
+
+        return tile.stream()
+            .filter(card -> card.eventDate().isAfter(now))
+            .filter(card -> distanceMeters(card, latitude, longitude) <= radiusMeters)
+            .sorted(Comparator.comparingDouble(card -> distanceMeters(card, latitude, longitude)))
+            .limit(limit)
+            .toList();
+    }
+
+    private List<EventCard> loadTile(GeoHash.Cell cell, int radiusKm) {
+        AppConfig.Events.Discovery config = appConfig.getEvents().getDiscovery();
+        long ttlSeconds = config.getTileCacheTtlSeconds();
+        long bucket = Instant.now().getEpochSecond() / ttlSeconds;
+        String key = TILE_PREFIX + cell.hash() + ":" + radiusKm + ":" + bucket;
+
+        String cached = redisCircuitBreaker.execute(() -> stringRedisTemplate.opsForValue().get(key), () -> null);
+        if (cached != null) {
+            try {
+                List<EventCard> cards = objectMapper.readValue(cached, CARDS_TYPE);
+                meterRegistry.counter("events.discovery.tile", "result", "hit").increment();
+                return cards;
+            } catch (JsonProcessingException e) {
+                log.warn("Corrupted event tile cache entry {}", key, e);
+            }
+        }
+        meterRegistry.counter("events.discovery.tile", "result", "miss").increment();
+
+        // Окно выборки начинается с начала временного окна, чтобы кэш был одинаковым для всех его запросов
+        LocalDateTime bucketStart = LocalDateTime.ofInstant(
+            Instant.ofEpochSecond(bucket * ttlSeconds), ZoneId.systemDefault());
+        Point center = geometryFactory.createPoint(new Coordinate(cell.centerLon(), cell.centerLat()));
+        List<EventCard> cards = toCards(eventRepository.findUpcomingCardsNear(
+            center, radiusKm * 1000.0 + cell.halfDiagonalMeters(), bucketStart, config.getTileFetchLimit()));
+
+        try {
+            String json = objectMapper.writeValueAsString(cards);
+            redisCircuitBreaker.run(
+                () -> stringRedisTemplate.opsForValue().set(key, json, Duration.ofSeconds(ttlSeconds)), () -> { });
+        } catch (JsonProcessingException e) {
+            log.warn("Failed to serialize event tile {}", key, e);
+        }
+        return cards;
+    }
+
+    private static List<EventCard> toCards(List<EventRepository.EventCardView> views) {
+        return views.stream()
+            .map(view -> new EventCard(view.getId(), view.getOrganizerId(), view.getTitle(),
+                view.getLocationName(), view.getEventDate(), view.getParticipantCount(),
+                view.getMaxParticipants(), view.getLatitude(), view.getLongitude()))
+            .toList();
+    }
+
+    private static double distanceMeters(EventCard card, double latitude, double longitude) {
+        return GeoHash.distanceMeters(latitude, longitude, card.latitude(), card.longitude());
+    }
+}
@@ -0,0 +1,256 @@
+package com.bestproduct.dating.service;
+
+import com.bestproduct.dating.config.AppConfig;
+import com.bestproduct.dating.domain.entity.Event;
+import com.bestproduct.dating.domain.entity.User;
+import com.bestproduct.dating.repository.EventRepository;
+import com.bestproduct.dating.util.HierarchicalTimingWheel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Планировщик жизненного цикла событий: UPCOMING -> IN_PROGRESS -> COMPLETED и напоминания участникам.
+ * Раз в loadIntervalMinutes события ближайшего окна загружаются в колесо таймеров,
+ * сработавшие таймеры обрабатываются пачкой. Работает только на узле, владеющем лидерской арендой в Redis.
+ */
+@Service
+@Slf4j
+public class EventLifecycleScheduler {
+
+    private static final String LEADER_KEY = "events:scheduler:leader";
+    private static final String REMINDER_SENT_PREFIX = "events:reminder:";
+    // KEYS[1] - ключ аренды, ARGV[1] - ID узла, ARGV[2] - TTL в миллисекундах
+    private static final DefaultRedisScript<Long> RENEW_LEASE = new DefaultRedisScript<>(
+        "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('PEXPIRE', KEYS[1], ARGV[2]) else return 0 end",
+        Long.class);
+    private static final long TICK_MS = 1000;
+    // 60 секунд x 60 минут x 24 часа
+    private static final int[] WHEEL_SIZES = {60, 60, 24};
+
+    private enum Action { REMINDER, START }
+
+    private record Timer(Action action, Long eventId, LocalDateTime eventDate) {}
+
+    private final EventRepository eventRepository;
+    private final NotificationService notificationService;
+    private final TelegramNotificationService telegramNotificationService;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisCircuitBreaker redisCircuitBreaker;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor backgroundTaskExecutor;
+    private final AppConfig appConfig;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final HierarchicalTimingWheel<Timer> wheel =
+        new HierarchicalTimingWheel<>(TICK_MS, WHEEL_SIZES, System.currentTimeMillis());
+    // Уже запланированные таймеры, чтобы повторная загрузка окна их не дублировала
+    private final Set<Timer> scheduled = ConcurrentHashMap.newKeySet();
+    private volatile boolean leader;
+    private volatile long nextLoadAt;
+
+    public EventLifecycleScheduler(EventRepository eventRepository,
+                                   NotificationService notificationService,
+                                   TelegramNotificationService telegramNotificationService,
+                                   StringRedisTemplate stringRedisTemplate,
+                                   RedisCircuitBreaker redisCircuitBreaker,
+                                   TransactionTemplate transactionTemplate,
+                                   @Qualifier("backgroundTaskExecutor") Executor backgroundTaskExecutor,
+                                   AppConfig appConfig) {
+        this.eventRepository = eventRepository;
+        this.notificationService = notificationService;
+        this.telegramNotificationService = telegramNotificationService;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.redisCircuitBreaker = redisCircuitBreaker;
+        this.transactionTemplate = transactionTemplate;
+        this.backgroundTaskExecutor = backgroundTaskExecutor;
+        this.appConfig = appConfig;
+    }
+
+    /**
+     * Тик колеса таймеров
+     */
+    @Scheduled(fixedDelay = TICK_MS)
+    public void tick() {
+        AppConfig.Events.Scheduler config = appConfig.getEvents().getScheduler();
+        if (!config.isEnabled() || !refreshLeadership(config)) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            List<Timer> due = new ArrayList<>();
+            if (now >= nextLoadAt) {
+                reconcileStatuses(config);
+                loadWindow(now, config, due);
+                nextLoadAt = now + Duration.ofMinutes(config.getLoadIntervalMinutes()).toMillis();
+            }
+            due.addAll(wheel.advance(now));
+            if (!due.isEmpty()) {
+                fire(due, config);
+            }
+        } catch (Exception e) {
+            log.error("Error in event lifecycle scheduler", e);
+        }
+    }
+
+    /**
+     * Захватить или продлить лидерскую аренду. Пока Redis недоступен, узел сохраняет текущую роль.
+     */
+    private boolean refreshLeadership(AppConfig.Events.Scheduler config) {
+        String ttl = String.valueOf(config.getLeaseTtlMs());
+        boolean nowLeader = redisCircuitBreaker.execute(() -> {
+            if (leader) {
+                Long renewed = stringRedisTemplate.execute(RENEW_LEASE, List.of(LEADER_KEY), nodeId, ttl);
+                if (renewed != null && renewed > 0) {
+                    return true;
+                }
+            }
+            return Boolean.TRUE.equals(stringRedisTemplate.opsForValue()
+                .setIfAbsent(LEADER_KEY, nodeId, Duration.ofMillis(config.getLeaseTtlMs())));
+        }, () -> leader);
+
+        if (nowLeader != leader) {
+            leader = nowLeader;
+            if (nowLeader) {
+                log.info("Event scheduler leadership acquired by node {}", nodeId);
+                nextLoadAt = 0;
+            } else {
+                log.info("Event scheduler leadership lost by node {}", nodeId);
+                wheel.clear();
+                scheduled.clear();
+            }
+        }
+        return nowLeader;
+    }
+
+    /**
+     * Догоняющие переходы статусов: пропущенные старты (например, после простоя) и завершение прошедших событий
+     */
+    private void reconcileStatuses(AppConfig.Events.Scheduler config) {
+        LocalDateTime now = LocalDateTime.now();
+        int[] counts = transactionTemplate.execute(status -> new int[] {
+            eventRepository.markStarted(now),
+            eventRepository.markCompleted(now.minusHours(config.getDurationHours()))
+        });
+        if (counts != null && (counts[0] > 0 || counts[1] > 0)) {
+            log.info("Event statuses reconciled: started={}, completed={}", counts[0], counts[1]);
+        }
+    }
+
+    /**
+     * Загрузить в колесо события, которые начнутся до следующей загрузки (плюс время напоминания)
+     */
+    private void loadWindow(long nowMs, AppConfig.Events.Scheduler config, List<Timer> due) {
+        LocalDateTime now = toLocalDateTime(nowMs);
+        Duration lead = Duration.ofMinutes(config.getReminderLeadMinutes());
+        LocalDateTime windowEnd = now.plusMinutes(config.getLoadIntervalMinutes()).plus(lead).plusSeconds(1);
+        long horizon = nowMs + wheel.horizonMs();
+
+        scheduled.removeIf(timer -> timer.eventDate().isBefore(now));
+
+        int added = 0;
+        for (Event event : eventRepository.findUpcomingEventsBetween(now, windowEnd)) {
+            LocalDateTime eventDate = event.getEventDate();
+            Timer reminder = new Timer(Action.REMINDER, event.getId(), eventDate);
+            Timer start = new Timer(Action.START, event.getId(), eventDate);
+            // Напоминание с уже прошедшим сроком (узел стал лидером поздно) сработает сразу
+            added += schedule(reminder, toEpochMs(eventDate.minus(lead)), horizon, due);
+            added += schedule(start, toEpochMs(eventDate), horizon, due);
+        }
+        log.debug("Event scheduler window loaded: {} new timers, {} scheduled", added, scheduled.size());
+    }
+
+    private int schedule(Timer timer, long deadlineMs, long horizonMs, List<Timer> due) {
+        if (deadlineMs > horizonMs || !scheduled.add(timer)) {
+            return 0;
+        }
+        wheel.add(deadlineMs, timer, due);
+        return 1;
+    }
+
+    /**
+     * Обработать сработавшие таймеры пачкой
+     */
+    private void fire(List<Timer> due, AppConfig.Events.Scheduler config) {
+        Map<Long, LocalDateTime> reminders = new HashMap<>();
+        boolean started = false;
+        for (Timer timer : due) {
+            if (timer.action() == Action.START) {
+                scheduled.remove(timer);
+                started = true;
+            } else {
+                reminders.put(timer.eventId(), timer.eventDate());
+            }
+        }
+
+        if (started) {
+            // Один UPDATE переводит все наступившие события, включая перенесенные на более раннее время
+            LocalDateTime now = LocalDateTime.now();
+            Integer count = transactionTemplate.execute(status -> eventRepository.markStarted(now));
+            log.info("Events started: {}", count);
+        }
+        if (!reminders.isEmpty()) {
+            backgroundTaskExecutor.execute(() -> sendReminders(reminders, config));
+        }
+    }
+
+    /**
+     * Разослать напоминания организатору и участникам. События, отмененные или перенесенные
+     * после загрузки в колесо, пропускаются; повторная отправка исключается ключом в Redis.
+     */
+    private void sendReminders(Map<Long, LocalDateTime> reminders, AppConfig.Events.Scheduler config) {
+        try {
+            Duration guardTtl = Duration.ofMinutes(config.getReminderLeadMinutes()).plusHours(1);
+            for (Event event : eventRepository.findUpcomingWithParticipantsByIdIn(reminders.keySet())) {
+                if (!event.getEventDate().equals(reminders.get(event.getId()))) {
+                    continue;
+                }
+                String guardKey = REMINDER_SENT_PREFIX + event.getId();
+                boolean firstSend = redisCircuitBreaker.execute(() -> Boolean.TRUE.equals(
+                    stringRedisTemplate.opsForValue().setIfAbsent(guardKey, "1", guardTtl)), () -> true);
+                if (!firstSend) {
+                    continue;
+                }
+
+                Set<Long> recipients = new LinkedHashSet<>();
+                recipients.add(event.getOrganizer().getId());
+                for (User participant : event.getParticipants()) {
+                    recipients.add(participant.getId());
+                }
+                for (Long userId : recipients) {
+                    notificationService.sendEventStartingSoonNotification(userId, event.getId(), event.getTitle());
+                    telegramNotificationService.sendEventStartingSoonNotification(userId, event.getId(), event.getTitle());
+                }
+                log.info("Event {} reminders sent to {} users", event.getId(), recipients.size());
+            }
+        } catch (Exception e) {
+            log.error("Error sending event reminders for events {}", reminders.keySet(), e);
+        }
+    }
+
+    private static long toEpochMs(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMs) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMs), ZoneId.systemDefault());
+    }
+}
@@ -18,6 +18,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Сервис для управления событиями (пьянками)
@@ -33,6 +34,8 @@ public class EventService {
     private final ProfileRepository profileRepository;
     private final NotificationService notificationService;
     private final TelegramNotificationService telegramNotificationService;
+    private final EventDiscoveryService eventDiscoveryService;
+    private final OrganizerDashboardService organizerDashboardService;
     private final AppConfig appConfig;
 
     /**
@@ -79,6 +82,7 @@ public class EventService {
         event.addParticipant(organizer);
 
         event = eventRepository.save(event);
+        organizerDashboardService.evictSummaries(List.of(organizerId));
         log.info("Event created: id={}, organizerId={}", event.getId(), organizerId);
         
         return event;
@@ -89,7 +93,7 @@ public class EventService {
      */
     // @Cacheable(value = "events", key = "'nearby_' + #userId + '_' + #radiusKm")
     @Transactional(readOnly = true)
-    public List<Event> findNearbyEvents(Long userId, int radiusKm, int limit) {
+    public List<EventDiscoveryService.EventCard> findNearbyEvents(Long userId, int radiusKm, int limit) {
         Profile userProfile = profileRepository.findByUserId(userId)
             .orElseThrow(() -> new IllegalArgumentException("Profile not found"));
 
@@ -102,26 +106,7 @@ public class EventService {
             radiusKm = maxRadius;
         }
 
-        double radiusMeters = radiusKm * 1000.0;
-
-        List<Event> events = eventRepository.findNearbyUpcomingEvents(
-            userProfile.getLocation(),
-            radiusMeters,
-            LocalDateTime.now(),
-            limit
-        );
-
-        // Ensure organizer and participants are loaded to avoid LazyInitializationException
-        events.forEach(event -> {
-            if (event.getOrganizer() != null) {
-                // Touch the organizer to ensure it's loaded
-                event.getOrganizer().getFirstName();
-            }
-            // Touch the participants collection to ensure it's loaded
-            event.getParticipants().size();
-        });
-
-        return events;
+        return eventDiscoveryService.findNearby(userProfile.getLocation(), radiusKm, limit);
     }
 
     /**
@@ -145,7 +130,7 @@ public class EventService {
         }
 
         // Проверка, не является ли уже участником
-        if (event.isParticipant(userId)) {
+        if (eventRepository.isParticipant(eventId, userId)) {
             throw new IllegalArgumentException("Already a participant");
         }
 
@@ -200,19 +185,14 @@ public class EventService {
             throw new IllegalArgumentException("Only organizer can approve requests");
         }
 
-        // Проверка доступных мест
-        if (!event.hasAvailableSlots()) {
-            throw new IllegalArgumentException("Event is full");
-        }
+        // Резервирование места (при нехватке мест исключение откатывает всю транзакцию)
+        reserveSeat(event.getId(), request.getUser().getId());
 
         request.setStatus(EventRequest.RequestStatus.APPROVED);
         request.setReviewedById(organizerId);
         request.setReviewedAt(LocalDateTime.now());
         eventRequestRepository.save(request);
-
-        // Добавление участника
-        event.addParticipant(request.getUser());
-        eventRepository.save(event);
+        organizerDashboardService.evictSummaries(List.of(organizerId, request.getUser().getId()));
 
         // Уведомление пользователю
         notificationService.createNotification(
@@ -241,7 +221,7 @@ public class EventService {
                 event.getId(), 
                 event.getTitle(),
                 request.getUser().getFirstName(),
-                event.getParticipants().size()
+                eventRepository.getParticipantCount(event.getId())
             );
         } catch (Exception e) {
             log.error("Failed to send Telegram notification to organizer about approved request", e);
@@ -321,8 +301,9 @@ public class EventService {
             throw new IllegalArgumentException("Organizer cannot leave event. Cancel it instead.");
         }
 
-        event.removeParticipant(user);
-        eventRepository.save(event);
+        if (releaseSeat(eventId, userId)) {
+            organizerDashboardService.evictSummaries(List.of(event.getOrganizer().getId(), userId));
+        }
         
         // Уведомление организатору о том, что участник покинул событие
         try {
@@ -354,6 +335,9 @@ public class EventService {
 
         event.setStatus(Event.EventStatus.CANCELLED);
         eventRepository.save(event);
+        Set<Long> affectedUsers = event.getParticipants().stream().map(User::getId).collect(Collectors.toSet());
+        affectedUsers.add(organizerId);
+        organizerDashboardService.evictSummaries(affectedUsers);
 
         // Уведомление всем участникам
         event.getParticipants().forEach(participant -> {
@@ -416,16 +400,11 @@ public class EventService {
             throw new IllegalArgumentException("Organizer cannot remove themselves from event");
         }
 
-        User userToRemove = userRepository.findById(userIdToRemove)
-            .orElseThrow(() -> new IllegalArgumentException("User not found"));
-
         // Проверка, что пользователь является участником
-        if (!event.isParticipant(userIdToRemove)) {
+        if (!releaseSeat(eventId, userIdToRemove)) {
             throw new IllegalArgumentException("User is not a participant of this event");
         }
-
-        event.removeParticipant(userToRemove);
-        eventRepository.save(event);
+        organizerDashboardService.evictSummaries(List.of(organizerId, userIdToRemove));
 
         // Уведомление удаленному пользователю
         notificationService.createNotification(
@@ -493,6 +472,32 @@ public class EventService {
         return request;
     }
 
+    /**
+     * Занять место и записать участника, не загружая коллекцию participants.
+     * Вставка идет первой: конфликт означает, что пользователь уже участник и место не тратится
+     */
+    private void reserveSeat(Long eventId, Long userId) {
+        if (eventRepository.insertParticipant(eventId, userId) == 0) {
+            throw new IllegalArgumentException("Already a participant");
+        }
+        if (eventRepository.reserveSeat(eventId) == 0) {
+            throw new IllegalArgumentException("Event is full");
+        }
+    }
+
+    /**
+     * Удалить участника и освободить место
+     *
+     * @return false, если пользователь не был участником
+     */
+    private boolean releaseSeat(Long eventId, Long userId) {
+        if (eventRepository.deleteParticipant(eventId, userId) == 0) {
+            return false;
+        }
+        eventRepository.releaseSeat(eventId);
+        return true;
+    }
+
 }
 
 
@@ -0,0 +1,221 @@
+package com.bestproduct.dating.service;
+
+import com.bestproduct.dating.config.AppConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Кэш флагов "пользователь уже свайпал/лайкал" в виде одного Redis hash на пользователя:
+ * matching:swipes:{from} / matching:likes:{from}, поле - ID целевого пользователя, значение - время записи
+ * (epoch seconds). Срок жизни флага проверяется по времени записи, весь hash истекает,
+ * если пользователь неактивен дольше TTL. Маленькие hash'и Redis хранит в компактном listpack,
+ * что намного дешевле отдельного ключа на каждую пару.
+ * Запись флага - O(1): разросшийся hash только помечается, устаревшие поля из него
+ * удаляет фоновая очистка порциями через HSCAN.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MatchingFlagCache {
+
+    private static final String SWIPES_PREFIX = "matching:swipes:";
+    private static final String LIKES_PREFIX = "matching:likes:";
+    private static final String LEGACY_SWIPE_PREFIX = "matching:swipe:";
+    private static final String LEGACY_LIKE_PREFIX = "matching:like:";
+    private static final Duration SWIPE_TTL = Duration.ofDays(7);
+    private static final Duration LIKE_TTL = Duration.ofDays(30);
+    // Hash больше порога попадает в очередь фоновой очистки устаревших полей
+    private static final int PRUNE_THRESHOLD = 512;
+    private static final String PRUNE_QUEUE = "matching:flags:prune";
+    private static final int PRUNE_BATCH = 100;
+    private static final String MIGRATION_LOCK = "matching:flags:migration";
+
+    // KEYS[1] - hash, KEYS[2] - очередь очистки; ARGV[1] - поле, ARGV[2] - текущее время,
+    // ARGV[3] - TTL в секундах, ARGV[4] - порог очистки
+    private static final DefaultRedisScript<Long> MARK = new DefaultRedisScript<>(
+        "redis.call('HSET', KEYS[1], ARGV[1], ARGV[2]) " +
+        "redis.call('EXPIRE', KEYS[1], ARGV[3]) " +
+        "if redis.call('HLEN', KEYS[1]) > tonumber(ARGV[4]) then redis.call('SADD', KEYS[2], KEYS[1]) end " +
+        "return 1",
+        Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final DistributedLockService lockService;
+    private final RedisCircuitBreaker redisCircuitBreaker;
+    private final AppConfig appConfig;
+
+    /**
+     * Результат предпроверок лайка
+     *
+     * @param dailyLikeCount значение дневного счетчика лайков или null, если его еще нет в Redis
+     */
+    public record LikePrecheck(Long dailyLikeCount, boolean swiped, boolean reverseLiked) {}
+
+    /**
+     * Предпроверки лайка одним пайплайном: дневной счетчик, свайп from -> to и обратный лайк to -> from
+     */
+    public LikePrecheck precheckLike(Long fromUserId, Long toUserId, String dailyCountKey) {
+        // Без Redis все проверки уходят в БД: счетчик пересчитывается, свайп проверяется под блокировкой
+        return redisCircuitBreaker.execute(() -> precheckInRedis(fromUserId, toUserId, dailyCountKey),
+            () -> new LikePrecheck(null, false, false));
+    }
+
+    private LikePrecheck precheckInRedis(Long fromUserId, Long toUserId, String dailyCountKey) {
+        List<Object> results = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection redis = (StringRedisConnection) connection;
+            redis.get(dailyCountKey);
+            redis.hGet(SWIPES_PREFIX + fromUserId, toUserId.toString());
+            redis.hGet(LIKES_PREFIX + toUserId, fromUserId.toString());
+            return null;
+        });
+        Long dailyLikeCount = results.get(0) != null ? Long.valueOf(results.get(0).toString()) : null;
+        boolean legacyFallback = appConfig.getMatching().isLegacyPairKeysFallback();
+        boolean swiped = isFresh(results.get(1), SWIPE_TTL)
+            || (legacyFallback && migrateLegacyKey(SWIPES_PREFIX, LEGACY_SWIPE_PREFIX, SWIPE_TTL, fromUserId, toUserId));
+        boolean reverseLiked = isFresh(results.get(2), LIKE_TTL)
+            || (legacyFallback && migrateLegacyKey(LIKES_PREFIX, LEGACY_LIKE_PREFIX, LIKE_TTL, toUserId, fromUserId));
+        return new LikePrecheck(dailyLikeCount, swiped, reverseLiked);
+    }
+
+    /**
+     * Добавить отметку свайпа в открытый пайплайн
+     */
+    public void markSwipe(StringRedisConnection redis, Long fromUserId, Long toUserId) {
+        mark(redis, SWIPES_PREFIX, SWIPE_TTL, fromUserId, toUserId);
+    }
+
+    /**
+     * Добавить отметку лайка в открытый пайплайн
+     */
+    public void markLike(StringRedisConnection redis, Long fromUserId, Long toUserId) {
+        mark(redis, LIKES_PREFIX, LIKE_TTL, fromUserId, toUserId);
+    }
+
+    private void mark(String prefix, Duration ttl, Long fromUserId, Long toUserId, long writtenAt) {
+        stringRedisTemplate.execute(MARK, List.of(prefix + fromUserId, PRUNE_QUEUE),
+            toUserId.toString(), Long.toString(writtenAt), Long.toString(ttl.toSeconds()),
+            Integer.toString(PRUNE_THRESHOLD));
+    }
+
+    private void mark(StringRedisConnection redis, String prefix, Duration ttl, Long fromUserId, Long toUserId) {
+        redis.eval(MARK.getScriptAsString(), ReturnType.INTEGER, 2, prefix + fromUserId, PRUNE_QUEUE,
+            toUserId.toString(), Long.toString(nowSeconds()), Long.toString(ttl.toSeconds()),
+            Integer.toString(PRUNE_THRESHOLD));
+    }
+
+    /**
+     * Удалить устаревшие поля из hash'ей, помеченных при записи. SPOP раздает ключи узлам без блокировки
+     */
+    @Scheduled(fixedDelay = 300000)
+    public void pruneOversizedHashes() {
+        redisCircuitBreaker.run(() -> {
+            List<String> keys = stringRedisTemplate.opsForSet().pop(PRUNE_QUEUE, PRUNE_BATCH);
+            if (keys == null) {
+                return;
+            }
+            for (String key : keys) {
+                Duration ttl = key.startsWith(LIKES_PREFIX) ? LIKE_TTL : SWIPE_TTL;
+                long removed = pruneHash(key, nowSeconds() - ttl.toSeconds());
+                log.debug("Pruned {} stale matching flags from {}", removed, key);
+            }
+        }, () -> log.debug("Redis unavailable, matching flags pruning skipped"));
+    }
+
+    private long pruneHash(String key, long cutoff) {
+        List<Object> stale = new ArrayList<>();
+        ScanOptions options = ScanOptions.scanOptions().count(PRUNE_THRESHOLD).build();
+        try (Cursor<Map.Entry<Object, Object>> cursor = stringRedisTemplate.opsForHash().scan(key, options)) {
+            while (cursor.hasNext()) {
+                Map.Entry<Object, Object> entry = cursor.next();
+                if (Long.parseLong(entry.getValue().toString()) < cutoff) {
+                    stale.add(entry.getKey());
+                }
+            }
+        }
+        return stale.isEmpty() ? 0 : stringRedisTemplate.opsForHash().delete(key, stale.toArray());
+    }
+
+    private static boolean isFresh(Object writtenAt, Duration ttl) {
+        return writtenAt != null && Long.parseLong(writtenAt.toString()) >= nowSeconds() - ttl.toSeconds();
+    }
+
+    /**
+     * Перенести флаг из старого ключа на пару в hash пользователя, сохранив оставшийся срок жизни
+     */
+    private boolean migrateLegacyKey(String prefix, String legacyPrefix, Duration ttl, Long fromUserId, Long toUserId) {
+        String legacyKey = legacyPrefix + fromUserId + ":" + toUserId;
+        Long remainingSeconds = stringRedisTemplate.getExpire(legacyKey);
+        // -2: ключа нет
+        if (remainingSeconds == null || remainingSeconds == -2) {
+            return false;
+        }
+        long writtenAt = remainingSeconds > 0
+            ? nowSeconds() - (ttl.toSeconds() - remainingSeconds)
+            : nowSeconds();
+        mark(prefix, ttl, fromUserId, toUserId, writtenAt);
+        stringRedisTemplate.delete(legacyKey);
+        return true;
+    }
+
+    /**
+     * Фоновый перенос всех старых ключей на пару (app.matching.migrate-legacy-pair-keys).
+     * Выполняется на одном узле, после завершения оба флага можно выключить.
+     */
+    @Async("backgroundTaskExecutor")
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateLegacyPairKeys() {
+        if (!appConfig.getMatching().isMigrateLegacyPairKeys()) {
+            return;
+        }
+        try {
+            lockService.tryExecuteWithLock(MIGRATION_LOCK, Duration.ofHours(1), () -> {
+                long swipes = migrateAll(SWIPES_PREFIX, LEGACY_SWIPE_PREFIX, SWIPE_TTL);
+                long likes = migrateAll(LIKES_PREFIX, LEGACY_LIKE_PREFIX, LIKE_TTL);
+                log.info("Migrated legacy matching flags: swipes={}, likes={}", swipes, likes);
+                return null;
+            });
+        } catch (IllegalStateException e) {
+            log.debug("Legacy matching flags migration is running on another node");
+        } catch (Exception e) {
+            log.error("Error migrating legacy matching flags", e);
+        }
+    }
+
+    private long migrateAll(String prefix, String legacyPrefix, Duration ttl) {
+        long migrated = 0;
+        ScanOptions options = ScanOptions.scanOptions().match(legacyPrefix + "*").count(1000).build();
+        try (Cursor<String> cursor = stringRedisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                String[] ids = cursor.next().substring(legacyPrefix.length()).split(":");
+                if (ids.length != 2) {
+                    continue;
+                }
+                if (migrateLegacyKey(prefix, legacyPrefix, ttl, Long.parseLong(ids[0]), Long.parseLong(ids[1]))) {
+                    migrated++;
+                }
+            }
+        }
+        return migrated;
+    }
+
+    private static long nowSeconds() {
+        return System.currentTimeMillis() / 1000;
+    }
+}
@@ -3,22 +3,32 @@ package com.bestproduct.dating.service;
 import com.bestproduct.dating.config.AppConfig;
 import com.bestproduct.dating.domain.entity.Like;
 import com.bestproduct.dating.domain.entity.Match;
+import com.bestproduct.dating.domain.entity.SwipeHistory;
 import com.bestproduct.dating.domain.entity.User;
 import com.bestproduct.dating.repository.LikeRepository;
 import com.bestproduct.dating.repository.MatchRepository;
 import com.bestproduct.dating.repository.SwipeHistoryRepository;
 import com.bestproduct.dating.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * Сервис для управления лайками и мэтчами
@@ -35,93 +45,175 @@ public class MatchingService {
     private final NotificationService notificationService;
     private final TelegramNotificationService telegramNotificationService;
     private final AppConfig appConfig;
-    private final RedisTemplate<String, Object> redisTemplate;
+    private final MatchingFlagCache matchingFlagCache;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisTemplate<String, Long> longRedisTemplate;
+    private final RedisTemplate<String, MatchingStatistics> matchingStatisticsRedisTemplate;
     private final DistributedLockService lockService;
+    private final RedisCircuitBreaker redisCircuitBreaker;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
 
-    private static final Duration SWIPE_CACHE_TTL = Duration.ofDays(7);
-    private static final Duration LIKE_CACHE_TTL = Duration.ofDays(30);
     private static final Duration STATS_CACHE_TTL = Duration.ofMinutes(5);
 
     /**
-     * Поставить лайк пользователю (с распределенной блокировкой)
+     * Поставить лайк пользователю (с распределенной блокировкой).
+     * Обращения к Redis сгруппированы: все предпроверки - один пайплайн,
+     * все обновления кэшей после записи - второй пайплайн.
+     * Транзакция записи фиксируется до снятия блокировки, поэтому встречный лайк той же пары
+     * под блокировкой всегда видит этот лайк и мэтч не теряется и не создается дважды.
      */
-    @Transactional
     public LikeResult likeUser(Long fromUserId, Long toUserId, String message, boolean isSuperLike) {
-        // Проверка лимита лайков
-        long todayLikes = getDailyLikeCount(fromUserId);
-        
-        if (todayLikes >= appConfig.getMatching().getMaxDailyLikes()) {
-            throw new IllegalArgumentException("Daily like limit reached");
-        }
+        Timer.Sample total = Timer.start(meterRegistry);
+        try {
+            // Дневной лимит, свайп и обратный лайк одним пайплайном
+            MatchingFlagCache.LikePrecheck precheck = timed("precheck",
+                () -> matchingFlagCache.precheckLike(fromUserId, toUserId, dailyLikesCacheKey(fromUserId)));
+
+            long todayLikes = precheck.dailyLikeCount() != null
+                ? precheck.dailyLikeCount()
+                : loadDailyLikeCount(fromUserId);
+            if (todayLikes >= appConfig.getMatching().getMaxDailyLikes()) {
+                throw new IllegalArgumentException("Daily like limit reached");
+            }
 
-        // Проверка существования свайпа (лайк, дизлайк или суперлайк)
-        if (hasSwipeRecord(fromUserId, toUserId)) {
-            throw new IllegalArgumentException("Already swiped this user");
-        }
+            if (precheck.swiped()) {
+                throw new IllegalArgumentException("Already swiped this user");
+            }
 
-        // Используем distributed lock для предотвращения race condition при создании матча
-        String lockKey = DistributedLockService.matchLockKey(fromUserId, toUserId);
-        
-        return lockService.executeWithLock(lockKey, () -> {
-            return doLikeUser(fromUserId, toUserId, message, isSuperLike);
-        });
+            // Используем distributed lock для предотвращения race condition при создании матча
+            String lockKey = DistributedLockService.matchLockKey(fromUserId, toUserId);
+            long lockRequestedAt = System.nanoTime();
+
+            return lockService.executeWithLock(lockKey, () -> {
+                stageTimer("lock_wait").record(System.nanoTime() - lockRequestedAt, TimeUnit.NANOSECONDS);
+                return doLikeUser(fromUserId, toUserId, message, isSuperLike, precheck.reverseLiked());
+            });
+        } finally {
+            total.stop(meterRegistry.timer("matching.like.duration"));
+        }
     }
 
     /**
      * Внутренняя логика лайка (выполняется под блокировкой)
      */
-    private LikeResult doLikeUser(Long fromUserId, Long toUserId, String message, boolean isSuperLike) {
-        // Еще раз проверяем свайп внутри блокировки
-        if (hasSwipeRecord(fromUserId, toUserId)) {
-            throw new IllegalArgumentException("Already swiped this user");
-        }
+    private LikeResult doLikeUser(Long fromUserId, Long toUserId, String message, boolean isSuperLike,
+                                  boolean reverseLikeCached) {
+        SwipeHistory.SwipeType swipeType = isSuperLike ? SwipeHistory.SwipeType.SUPER_LIKE : SwipeHistory.SwipeType.LIKE;
+        LikeWrite write = timed("db_write", () -> transactionTemplate.execute(status -> {
+            // Атомарная проверка по БД: пару занимает только один лайк, даже если кэш и блокировка ошиблись
+            if (swipeHistoryRepository.claimPair(fromUserId, toUserId, swipeType.name()) == 0) {
+                throw new IllegalArgumentException("Already swiped this user");
+            }
 
-        User fromUser = userRepository.findById(fromUserId)
-            .orElseThrow(() -> new IllegalArgumentException("From user not found"));
-        User toUser = userRepository.findById(toUserId)
-            .orElseThrow(() -> new IllegalArgumentException("To user not found"));
-
-        // Создание лайка
-        Like like = Like.builder()
-            .fromUser(fromUser)
-            .toUser(toUser)
-            .message(message)
-            .isSuperLike(isSuperLike)
-            .build();
+            User fromUser = userRepository.findById(fromUserId)
+                .orElseThrow(() -> new IllegalArgumentException("From user not found"));
+            User toUser = userRepository.findById(toUserId)
+                .orElseThrow(() -> new IllegalArgumentException("To user not found"));
+
+            // Создание лайка
+            Like like = Like.builder()
+                .fromUser(fromUser)
+                .toUser(toUser)
+                .message(message)
+                .isSuperLike(isSuperLike)
+                .build();
+            likeRepository.save(like);
+
+            // Сохранить в историю свайпов (пара занята выше)
+            swipeHistoryRepository.save(SwipeHistory.builder()
+                .fromUser(fromUser)
+                .toUser(toUser)
+                .swipeType(swipeType)
+                .build());
+
+            // Проверка взаимного лайка: положительный ответ кэша окончателен, промах проверяется по БД
+            boolean reverseLikeInDb = !reverseLikeCached && likeRepository.existsByFromUserIdAndToUserId(toUserId, fromUserId);
+            Match match = reverseLikeCached || reverseLikeInDb ? createMatchIfNotExists(fromUser, toUser) : null;
+            return new LikeWrite(match, reverseLikeInDb);
+        }));
 
-        likeRepository.save(like);
-        cacheUserLike(fromUserId, toUserId);
-        incrementDailyLikeCount(fromUserId);
-        
-        // Сохранить в историю свайпов
-        saveSwipeHistory(fromUserId, toUserId, isSuperLike ? 
-            com.bestproduct.dating.domain.entity.SwipeHistory.SwipeType.SUPER_LIKE : 
-            com.bestproduct.dating.domain.entity.SwipeHistory.SwipeType.LIKE);
-        
         log.info("User {} liked user {}", fromUserId, toUserId);
-        invalidateStatisticsCache(fromUserId);
-        invalidateStatisticsCache(toUserId);
-
-        // Проверка взаимного лайка
-        if (hasLike(toUserId, fromUserId)) {
-            // Создание мэтча (уже под блокировкой, поэтому безопасно)
-            Match match = createMatchIfNotExists(fromUser, toUser);
-            invalidateStatisticsCache(fromUserId);
-            invalidateStatisticsCache(toUserId);
-            
-            // Отправка уведомлений асинхронно
-            sendMatchNotificationsAsync(fromUserId, toUserId, match.getId());
-            
+        timed("cache_update", () -> {
+            updateCachesAfterLike(fromUserId, toUserId, write.reverseLikeFromDb());
+            return null;
+        });
+
+        if (write.match() != null) {
+            timed("notify", () -> {
+                sendMatchNotificationsAsync(fromUserId, toUserId, write.match().getId());
+                return null;
+            });
             log.info("Match created between users {} and {}", fromUserId, toUserId);
-            return new LikeResult(true, true, match.getId());
+            return new LikeResult(true, true, write.match().getId());
         }
 
         // Уведомление о новом лайке асинхронно
-        sendLikeNotificationsAsync(fromUserId, toUserId, isSuperLike);
+        timed("notify", () -> {
+            sendLikeNotificationsAsync(fromUserId, toUserId, isSuperLike);
+            return null;
+        });
 
         return new LikeResult(true, false, null);
     }
 
+    private record LikeWrite(Match match, boolean reverseLikeFromDb) {}
+
+    /**
+     * Записать свайп без лайка (дизлайк). Повторный свайп той же пары ничего не записывает
+     *
+     * @return false, если пользователь уже оценивал этот профиль
+     */
+    @Transactional
+    public boolean recordSwipe(Long fromUserId, Long toUserId, SwipeHistory.SwipeType swipeType) {
+        if (swipeHistoryRepository.claimPair(fromUserId, toUserId, swipeType.name()) == 0) {
+            return false;
+        }
+        swipeHistoryRepository.save(SwipeHistory.builder()
+            .fromUser(userRepository.getReferenceById(fromUserId))
+            .toUser(userRepository.getReferenceById(toUserId))
+            .swipeType(swipeType)
+            .build());
+        return true;
+    }
+
+    /**
+     * Все обновления кэшей после лайка одним пайплайном: флаги лайка и свайпа,
+     * дневной счетчик и сброс статистики обоих пользователей
+     */
+    private void updateCachesAfterLike(Long fromUserId, Long toUserId, boolean cacheReverseLike) {
+        String dailyKey = dailyLikesCacheKey(fromUserId);
+        long endOfDay = LocalDate.now().plusDays(1).atStartOfDay(ZoneId.systemDefault()).toEpochSecond();
+        // Кэши вспомогательные: если Redis недоступен, обновление пропускается, проверки уходят в БД
+        redisCircuitBreaker.run(() -> stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection redis = (StringRedisConnection) connection;
+            matchingFlagCache.markLike(redis, fromUserId, toUserId);
+            matchingFlagCache.markSwipe(redis, fromUserId, toUserId);
+            if (cacheReverseLike) {
+                matchingFlagCache.markLike(redis, toUserId, fromUserId);
+            }
+            redis.incr(dailyKey);
+            redis.expireAt(dailyKey, endOfDay);
+            redis.del(statisticsCacheKey(fromUserId), statisticsCacheKey(toUserId));
+            return null;
+        }), () -> log.debug("Redis unavailable, skipping cache update after like {} -> {}", fromUserId, toUserId));
+    }
+
+    private <T> T timed(String stage, Supplier<T> operation) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return operation.get();
+        } finally {
+            sample.stop(stageTimer(stage));
+        }
+    }
+
+    private Timer stageTimer(String stage) {
+        return Timer.builder("matching.like.stage")
+            .tag("stage", stage)
+            .register(meterRegistry);
+    }
+
     /**
      * Отправка уведомлений о матче асинхронно
      */
@@ -250,10 +342,11 @@ public class MatchingService {
      
     public MatchingStatistics getStatistics(Long userId) {
         String cacheKey = statisticsCacheKey(userId);
-        Object cached = redisTemplate.opsForValue().get(cacheKey);
+        MatchingStatistics cached = redisCircuitBreaker.execute(
+            () -> matchingStatisticsRedisTemplate.opsForValue().get(cacheKey), () -> null);
         
-        if (cached instanceof MatchingStatistics stats) {
-            return stats;
+        if (cached != null) {
+            return cached;
         }
         
         long sentLikes = likeRepository.findByFromUserId(userId).size();
@@ -261,115 +354,31 @@ public class MatchingService {
         long activeMatches = matchRepository.countActiveMatchesByUserId(userId);
         
         MatchingStatistics statistics = new MatchingStatistics(sentLikes, receivedLikes, activeMatches);
-        redisTemplate.opsForValue().set(cacheKey, statistics, STATS_CACHE_TTL);
+        redisCircuitBreaker.run(
+            () -> matchingStatisticsRedisTemplate.opsForValue().set(cacheKey, statistics, STATS_CACHE_TTL), () -> { });
         return statistics;
     }
 
-    
-     // Сохранить историю свайпа
-  
-     
-     private void saveSwipeHistory(Long fromUserId, Long toUserId, com.bestproduct.dating.domain.entity.SwipeHistory.SwipeType swipeType) {
-        try {
-            User fromUser = userRepository.findById(fromUserId)
-                .orElseThrow(() -> new IllegalArgumentException("From user not found"));
-            User toUser = userRepository.findById(toUserId)
-                .orElseThrow(() -> new IllegalArgumentException("To user not found"));
-            
-            // Проверить, есть ли уже запись (не должно быть из-за unique constraint)
-            Optional<com.bestproduct.dating.domain.entity.SwipeHistory> existing = swipeHistoryRepository.findByFromUserIdAndToUserId(fromUserId, toUserId);
-            
-            if (existing.isEmpty()) {
-                com.bestproduct.dating.domain.entity.SwipeHistory swipeHistory = com.bestproduct.dating.domain.entity.SwipeHistory.builder()
-                    .fromUser(fromUser)
-                    .toUser(toUser)
-                    .swipeType(swipeType)
-                    .build();
-                    
-                swipeHistoryRepository.save(swipeHistory);
-                log.debug("Saved swipe history: {} -> {} ({})", fromUserId, toUserId, swipeType);
-                cacheSwipeRecord(fromUserId, toUserId);
-            }
-        } catch (Exception e) {
-            log.error("Error saving swipe history", e);
-        }
-    }
-
-    private long getDailyLikeCount(Long userId) {
-        String key = dailyLikesCacheKey(userId);
-        Object cached = redisTemplate.opsForValue().get(key);
-        if (cached != null) {
-            return Long.parseLong(cached.toString());
-        }
+    private long loadDailyLikeCount(Long userId) {
         long count = likeRepository.countLikesByUserSince(userId, LocalDate.now().atStartOfDay());
-        redisTemplate.opsForValue().set(key, count, durationUntilEndOfDay());
+        redisCircuitBreaker.run(
+            () -> longRedisTemplate.opsForValue().set(dailyLikesCacheKey(userId), count, durationUntilEndOfDay()), () -> { });
         return count;
     }
 
-    private void incrementDailyLikeCount(Long userId) {
-        String key = dailyLikesCacheKey(userId);
-        Long value = redisTemplate.opsForValue().increment(key);
-        if (value != null && value == 1L) {
-            redisTemplate.expire(key, durationUntilEndOfDay());
-        }
-    }
-
     private Duration durationUntilEndOfDay() {
         LocalDateTime now = LocalDateTime.now();
         LocalDateTime endOfDay = LocalDate.now().plusDays(1).atStartOfDay();
         return Duration.between(now, endOfDay);
     }
 
-    private boolean hasSwipeRecord(Long fromUserId, Long toUserId) {
-        String key = swipeCacheKey(fromUserId, toUserId);
-        if (Boolean.TRUE.equals(redisTemplate.hasKey(key))) {
-            return true;
-        }
-        boolean exists = swipeHistoryRepository.findByFromUserIdAndToUserId(fromUserId, toUserId).isPresent();
-        if (exists) {
-            cacheSwipeRecord(fromUserId, toUserId);
-        }
-        return exists;
-    }
-
-    private void cacheSwipeRecord(Long fromUserId, Long toUserId) {
-        redisTemplate.opsForValue().set(swipeCacheKey(fromUserId, toUserId), true, SWIPE_CACHE_TTL);
-    }
-
-    private void cacheUserLike(Long fromUserId, Long toUserId) {
-        redisTemplate.opsForValue().set(likeCacheKey(fromUserId, toUserId), true, LIKE_CACHE_TTL);
-    }
-
-    private boolean hasLike(Long fromUserId, Long toUserId) {
-        String key = likeCacheKey(fromUserId, toUserId);
-        if (Boolean.TRUE.equals(redisTemplate.hasKey(key))) {
-            return true;
-        }
-        boolean exists = likeRepository.findByFromUserIdAndToUserId(fromUserId, toUserId).isPresent();
-        if (exists) {
-            cacheUserLike(fromUserId, toUserId);
-        }
-        return exists;
-    }
-
-    private void invalidateStatisticsCache(Long userId) {
-        redisTemplate.delete(statisticsCacheKey(userId));
-    }
-
     private String dailyLikesCacheKey(Long userId) {
         return "matching:likes:daily:" + userId + ":" + LocalDate.now();
     }
 
-    private String swipeCacheKey(Long fromUserId, Long toUserId) {
-        return "matching:swipe:" + fromUserId + ":" + toUserId;
-    }
-
-    private String likeCacheKey(Long fromUserId, Long toUserId) {
-        return "matching:like:" + fromUserId + ":" + toUserId;
-    }
-
     private String statisticsCacheKey(Long userId) {
-        return "matching:stats:" + userId;
+        // v2: бинарный формат вместо JSON, старые значения не читаются и истекают сами
+        return "matching:stats:v2:" + userId;
     }
 
     public record LikeResult(boolean success, boolean isMatch, Long matchId) {}
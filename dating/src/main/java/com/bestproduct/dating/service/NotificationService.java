@@ -175,9 +175,8 @@ public class NotificationService {
      */
     @Transactional
     public void markAllAsRead(Long userId) {
-        List<Notification> notifications = notificationRepository.findUnreadNotificationsByUserId(userId);
-        notifications.forEach(Notification::markAsRead);
-        notificationRepository.saveAll(notifications);
+        int updated = notificationRepository.markAllAsReadByUserId(userId);
+        log.debug("Marked {} notifications as read: userId={}", updated, userId);
     }
 
     /**
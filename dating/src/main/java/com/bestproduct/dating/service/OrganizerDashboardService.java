@@ -0,0 +1,125 @@
+package com.bestproduct.dating.service;
+
+import com.bestproduct.dating.config.ReadReplicaRoutingDataSource;
+import com.bestproduct.dating.domain.entity.Event;
+import com.bestproduct.dating.repository.EventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Запросы для меню организатора: счетчики, проверки существования и одно событие по ID.
+ * Ни один из них не поднимает полный граф событий; сводка "Мои события" кэшируется в Redis.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrganizerDashboardService {
+
+    private static final String SUMMARY_PREFIX = "events:my:";
+    // Статусы меняет и планировщик событий, поэтому сводка живет недолго даже без явного сброса
+    private static final Duration SUMMARY_TTL = Duration.ofSeconds(60);
+
+    private final EventRepository eventRepository;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisCircuitBreaker redisCircuitBreaker;
+    private final ObjectMapper objectMapper;
+
+    public record OrganizedEvent(Long id, String title, int participantCount, int maxParticipants,
+                                 Event.EventStatus status) {}
+
+    public record MyEventsSummary(List<OrganizedEvent> organized, long participatingCount) {}
+
+    /**
+     * Есть ли у пользователя предстоящее событие, которое он организует
+     */
+    @Transactional(readOnly = true)
+    public boolean hasUpcomingEvent(Long organizerId) {
+        return eventRepository.existsByOrganizerIdAndStatus(organizerId, Event.EventStatus.UPCOMING);
+    }
+
+    /**
+     * Количество предстоящих и идущих событий организатора
+     */
+    @Transactional(readOnly = true)
+    public long countActiveEvents(Long organizerId) {
+        return eventRepository.countActiveEventsByOrganizer(organizerId);
+    }
+
+    /**
+     * Событие организатора вместе с участниками
+     */
+    @Transactional(readOnly = true)
+    public Optional<Event> findOrganizedEvent(Long eventId, Long organizerId) {
+        return eventRepository.findByIdAndOrganizerId(eventId, organizerId);
+    }
+
+    /**
+     * Сводка "Мои события": организованные события и количество событий, где пользователь участник.
+     * Читается с primary: ответ с отстающей реплики оказался бы в кэше уже после сброса сводки
+     * и жил бы в нем весь TTL
+     */
+    @Transactional(readOnly = true)
+    public MyEventsSummary getMyEventsSummary(Long userId) {
+        String key = SUMMARY_PREFIX + userId;
+        String cached = redisCircuitBreaker.execute(() -> stringRedisTemplate.opsForValue().get(key), () -> null);
+        if (cached != null) {
+            try {
+                return objectMapper.readValue(cached, MyEventsSummary.class);
+            } catch (JsonProcessingException e) {
+                log.warn("Corrupted events summary cache entry for user {}", userId, e);
+            }
+        }
+
+        MyEventsSummary summary = ReadReplicaRoutingDataSource.onPrimary(() -> loadSummary(userId));
+
+        try {
+            String json = objectMapper.writeValueAsString(summary);
+            redisCircuitBreaker.run(() -> stringRedisTemplate.opsForValue().set(key, json, SUMMARY_TTL), () -> { });
+        } catch (JsonProcessingException e) {
+            log.warn("Failed to serialize events summary for user {}", userId, e);
+        }
+        return summary;
+    }
+
+    private MyEventsSummary loadSummary(Long userId) {
+        List<OrganizedEvent> organized = eventRepository.findOrganizedEventViews(userId).stream()
+            .map(view -> new OrganizedEvent(view.getId(), view.getTitle(), view.getParticipantCount(),
+                view.getMaxParticipants(), view.getStatus()))
+            .toList();
+        return new MyEventsSummary(organized, eventRepository.countUpcomingParticipations(userId));
+    }
+
+    /**
+     * Сбросить сводки пользователей. Внутри транзакции сброс откладывается до коммита,
+     * чтобы параллельный запрос не закэшировал старые данные заново
+     */
+    public void evictSummaries(Collection<Long> userIds) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deleteSummaries(userIds);
+                }
+            });
+        } else {
+            deleteSummaries(userIds);
+        }
+    }
+
+    private void deleteSummaries(Collection<Long> userIds) {
+        List<String> keys = userIds.stream().map(userId -> SUMMARY_PREFIX + userId).toList();
+        redisCircuitBreaker.run(() -> stringRedisTemplate.delete(keys), () -> { });
+    }
+}
@@ -0,0 +1,226 @@
+package com.bestproduct.dating.service;
+
+import com.bestproduct.dating.config.AppConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Обслуживание недельных партиций swipe_history и likes:
+ * заранее создает партиции на будущие недели и удаляет (или отсоединяет) устаревшие.
+ * Строки, попавшие в DEFAULT-партицию (не было партиции на их неделю), переносятся в создаваемую партицию,
+ * иначе Postgres не даст ее создать. Непустая DEFAULT-партиция - признак сбоя обслуживания:
+ * число строк в ней - partitions.default.rows{table}, при ненулевом значении пишется ошибка в лог.
+ * Выполняется на одном узле под распределенной блокировкой, каждая таблица обслуживается независимо.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PartitionMaintenanceService {
+
+    private static final List<String> PARTITIONED_TABLES = List.of("swipe_history", "likes");
+    private static final String LOCK_KEY = "partitions:maintenance";
+    private static final Duration LOCK_TIMEOUT = Duration.ofMinutes(10);
+    private static final DateTimeFormatter SUFFIX_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final Pattern UPPER_BOUND = Pattern.compile("TO \\('([^']+)'\\)");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DistributedLockService lockService;
+    private final AppConfig appConfig;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, AtomicLong> defaultRows = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void registerMetrics() {
+        for (String table : PARTITIONED_TABLES) {
+            AtomicLong rows = defaultRows.computeIfAbsent(table, t -> new AtomicLong());
+            Gauge.builder("partitions.default.rows", rows, AtomicLong::get)
+                .tag("table", table)
+                .register(meterRegistry);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintainPartitions();
+    }
+
+    /**
+     * Ежедневное обслуживание партиций
+     */
+    @Scheduled(cron = "0 15 3 * * *")
+    public void maintainPartitions() {
+        AppConfig.Partitioning config = appConfig.getPartitioning();
+        if (!config.isEnabled()) {
+            return;
+        }
+        try {
+            lockService.tryExecuteWithLock(LOCK_KEY, LOCK_TIMEOUT, () -> {
+                for (String table : PARTITIONED_TABLES) {
+                    // Сбой одной таблицы не должен оставить другую без партиций на будущие недели
+                    try {
+                        createFuturePartitions(table, config.getPremakeWeeks());
+                        retireOldPartitions(table, retentionDays(table, config), config.isDetachInsteadOfDrop());
+                    } catch (Exception e) {
+                        log.error("Error maintaining partitions of {}", table, e);
+                    }
+                    checkDefaultPartition(table);
+                }
+                return null;
+            });
+        } catch (IllegalStateException e) {
+            log.debug("Partition maintenance is running on another node");
+        } catch (Exception e) {
+            log.error("Error maintaining partitions", e);
+        }
+    }
+
+    private void createFuturePartitions(String table, int premakeWeeks) {
+        LocalDate weekStart = LocalDate.now().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        for (int i = 0; i <= premakeWeeks; i++) {
+            LocalDate from = weekStart.plusWeeks(i);
+            String partition = table + "_p" + from.format(SUFFIX_FORMAT);
+            if (partitionExists(partition)) {
+                continue;
+            }
+            LocalDate to = from.plusWeeks(1);
+            if (!hasDefaultRows(table, from, to)) {
+                jdbcTemplate.execute(String.format(
+                    "CREATE TABLE %s PARTITION OF %s FOR VALUES FROM ('%s') TO ('%s')",
+                    partition, table, from, to));
+                log.info("Created partition {}", partition);
+            } else {
+                int moved = createFromDefault(table, partition, from, to);
+                log.warn("Created partition {} and moved {} rows into it from {}", partition, moved,
+                    defaultPartition(table));
+            }
+        }
+    }
+
+    /**
+     * Создать партицию отдельной таблицей, перенести в нее строки недели из DEFAULT и присоединить.
+     * Все в одной транзакции: ATTACH проверяет, что в DEFAULT не осталось строк из диапазона
+     */
+    private int createFromDefault(String table, String partition, LocalDate from, LocalDate to) {
+        Integer moved = transactionTemplate.execute(status -> {
+            jdbcTemplate.execute(String.format(
+                "CREATE TABLE %s (LIKE %s INCLUDING DEFAULTS INCLUDING CONSTRAINTS)", partition, table));
+            int rows = jdbcTemplate.update(String.format(
+                "WITH moved AS (DELETE FROM %s WHERE created_at >= ? AND created_at < ? RETURNING *) " +
+                "INSERT INTO %s SELECT * FROM moved", defaultPartition(table), partition),
+                from.atStartOfDay(), to.atStartOfDay());
+            jdbcTemplate.execute(String.format(
+                "ALTER TABLE %s ATTACH PARTITION %s FOR VALUES FROM ('%s') TO ('%s')",
+                table, partition, from, to));
+            return rows;
+        });
+        return moved != null ? moved : 0;
+    }
+
+    private boolean hasDefaultRows(String table, LocalDate from, LocalDate to) {
+        Boolean exists = jdbcTemplate.queryForObject(String.format(
+            "SELECT EXISTS (SELECT 1 FROM %s WHERE created_at >= ? AND created_at < ?)", defaultPartition(table)),
+            Boolean.class, from.atStartOfDay(), to.atStartOfDay());
+        return Boolean.TRUE.equals(exists);
+    }
+
+    /**
+     * Обновить метрику строк в DEFAULT-партиции и сообщить, если она не пуста
+     */
+    private void checkDefaultPartition(String table) {
+        String partition = defaultPartition(table);
+        try {
+            if (!partitionExists(partition)) {
+                return;
+            }
+            Long rows = jdbcTemplate.queryForObject(String.format("SELECT count(*) FROM %s", partition), Long.class);
+            long count = rows != null ? rows : 0;
+            defaultRows.get(table).set(count);
+            if (count > 0) {
+                log.error("Default partition {} holds {} rows outside weekly partitions", partition, count);
+            }
+        } catch (Exception e) {
+            log.error("Error checking default partition {}", partition, e);
+        }
+    }
+
+    private static String defaultPartition(String table) {
+        return table + "_default";
+    }
+
+    private void retireOldPartitions(String table, int retentionDays, boolean detach) {
+        LocalDateTime cutoff = LocalDate.now().minusDays(retentionDays).atStartOfDay();
+        List<PartitionBound> partitions = jdbcTemplate.query(
+            "SELECT c.relname, pg_get_expr(c.relpartbound, c.oid) " +
+            "FROM pg_inherits i " +
+            "JOIN pg_class c ON c.oid = i.inhrelid " +
+            "JOIN pg_class p ON p.oid = i.inhparent " +
+            "WHERE p.relname = ?",
+            (rs, rowNum) -> new PartitionBound(rs.getString(1), rs.getString(2)),
+            table);
+
+        for (PartitionBound partition : partitions) {
+            LocalDateTime upperBound = partition.upperBound();
+            if (upperBound == null || upperBound.isAfter(cutoff)) {
+                continue;
+            }
+            if (detach) {
+                jdbcTemplate.execute(String.format("ALTER TABLE %s DETACH PARTITION %s", table, partition.name()));
+                log.info("Detached partition {} (upper bound {})", partition.name(), upperBound);
+            } else {
+                jdbcTemplate.execute(String.format("DROP TABLE %s", partition.name()));
+                log.info("Dropped partition {} (upper bound {})", partition.name(), upperBound);
+            }
+        }
+    }
+
+    private boolean partitionExists(String partition) {
+        Boolean exists = jdbcTemplate.queryForObject(
+            "SELECT EXISTS (SELECT 1 FROM pg_class WHERE relname = ?)", Boolean.class, partition);
+        return Boolean.TRUE.equals(exists);
+    }
+
+    private int retentionDays(String table, AppConfig.Partitioning config) {
+        return "likes".equals(table) ? config.getLikesRetentionDays() : config.getSwipeHistoryRetentionDays();
+    }
+
+    /**
+     * Партиция и выражение ее границ (FOR VALUES FROM (...) TO (...) или DEFAULT)
+     */
+    private record PartitionBound(String name, String boundExpression) {
+
+        LocalDateTime upperBound() {
+            if (boundExpression == null) {
+                return null;
+            }
+            Matcher matcher = UPPER_BOUND.matcher(boundExpression);
+            if (!matcher.find()) {
+                return null;
+            }
+            return LocalDateTime.parse(matcher.group(1).replace(' ', 'T'));
+        }
+    }
+}
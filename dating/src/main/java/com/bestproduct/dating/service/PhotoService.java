@@ -5,6 +5,7 @@ import com.bestproduct.dating.domain.entity.Profile;
 import com.bestproduct.dating.repository.ProfileRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.telegram.telegrambots.meta.api.methods.send.SendPhoto;
@@ -25,6 +26,7 @@ public class PhotoService {
 
     private final ProfileRepository profileRepository;
     private final AppConfig appConfig;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Сохранить file_id фотографии в профиль
@@ -56,11 +58,41 @@ public class PhotoService {
         currentPhotos.add(fileId);
         profile.setPhotoUrls(currentPhotos);
         profileRepository.save(profile);
+        eventPublisher.publishEvent(new ProfileChangedEvent(userId));
 
         log.info("Photo saved to profile: userId={}, fileId={}", userId, fileId);
         return fileId;
     }
 
+    /**
+     * Добавить несколько фотографий в профиль одним обновлением.
+     * Фотографии сверх лимита профиля отбрасываются.
+     *
+     * @param userId ID пользователя
+     * @param fileIds file_id фотографий в порядке получения
+     * @return file_id фактически добавленных фотографий
+     */
+    @Transactional
+    public List<String> addPhotosToProfile(Long userId, List<String> fileIds) {
+        Profile profile = profileRepository.findByUserId(userId)
+            .orElseThrow(() -> new IllegalArgumentException("Profile not found"));
+
+        List<String> currentPhotos = profile.getPhotoUrls();
+        int availableSlots = appConfig.getImages().getMaxPerProfile() - currentPhotos.size();
+        if (availableSlots <= 0) {
+            return List.of();
+        }
+
+        List<String> added = new ArrayList<>(fileIds.subList(0, Math.min(availableSlots, fileIds.size())));
+        currentPhotos.addAll(added);
+        profile.setPhotoUrls(currentPhotos);
+        profileRepository.save(profile);
+        eventPublisher.publishEvent(new ProfileChangedEvent(userId));
+
+        log.info("Photos saved to profile: userId={}, count={}", userId, added.size());
+        return added;
+    }
+
     /**
      * Заменить фотографию в профиле (удалить все старые и добавить новую)
      */
@@ -81,6 +113,7 @@ public class PhotoService {
         newPhotos.add(fileId);
         profile.setPhotoUrls(newPhotos);
         profileRepository.save(profile);
+        eventPublisher.publishEvent(new ProfileChangedEvent(userId));
 
         log.info("Photo replaced in profile: userId={}, fileId={}", userId, fileId);
         return fileId;
@@ -98,6 +131,7 @@ public class PhotoService {
         photos.remove(fileId);
         profile.setPhotoUrls(photos);
         profileRepository.save(profile);
+        eventPublisher.publishEvent(new ProfileChangedEvent(userId));
 
         log.info("Photo deleted from profile: userId={}, fileId={}", userId, fileId);
     }
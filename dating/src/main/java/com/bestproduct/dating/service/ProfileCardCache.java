@@ -0,0 +1,264 @@
+package com.bestproduct.dating.service;
+
+import com.bestproduct.dating.domain.entity.Profile;
+import com.bestproduct.dating.domain.entity.User;
+import com.bestproduct.dating.repository.ProfileRepository;
+import com.bestproduct.dating.util.OldestEntries;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.telegram.telegrambots.meta.api.objects.media.InputMedia;
+import org.telegram.telegrambots.meta.api.objects.media.InputMediaPhoto;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Кэш отрендеренных карточек профилей для показа в свайпе.
+ * Ключ - (ID профиля, версия карточки); версия растет при любом изменении профиля или пользователя,
+ * поэтому измененный профиль просто не находится в кэше под новой версией, а старая запись истекает по TTL.
+ * Уровни: локальный near-cache с готовым альбомом InputMedia, затем Redis "profile:card:{id}:{version}",
+ * и только при промахе обоих - загрузка профилей с пользователями одним запросом.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProfileCardCache {
+
+    private static final String KEY_PREFIX = "profile:card:";
+    // Возраст в подписи считается по году, поэтому запись не должна жить дольше суток
+    private static final Duration REDIS_TTL = Duration.ofHours(24);
+    private static final Duration NEAR_CACHE_TTL = Duration.ofHours(1);
+    private static final int NEAR_CACHE_MAX_SIZE = 20_000;
+    private static final int NEAR_CACHE_EVICTION_BATCH = NEAR_CACHE_MAX_SIZE / 10;
+    private static final int MAX_BIO_LENGTH = 100;
+    private static final String BIO_PLACEHOLDER = "Расскажите о себе...";
+
+    private final ProfileRepository profileRepository;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisCircuitBreaker redisCircuitBreaker;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Long, LocalCard> nearCache = new ConcurrentHashMap<>();
+
+    /**
+     * Данные карточки: готовая подпись и file_id фотографий
+     */
+    public record ProfileCard(Long profileId, Long userId, long version, String caption, List<String> photoFileIds) {}
+
+    /**
+     * Карточка вместе с готовыми медиа. Списки неизменяемы и разделяются между всеми показами:
+     * media - альбом с подписью у первого фото, pages - каждое фото с подписью для листания в одном сообщении
+     */
+    public record RenderedCard(ProfileCard card, List<InputMedia> media, List<InputMedia> pages, long expiresAt) {
+
+        public Long userId() {
+            return card.userId();
+        }
+
+        public String caption() {
+            return card.caption();
+        }
+
+        public List<String> photoFileIds() {
+            return card.photoFileIds();
+        }
+    }
+
+    /**
+     * Запись near-cache; время последнего показа нужно, чтобы при переполнении вытеснять давно не показанные
+     */
+    private static final class LocalCard {
+        private final RenderedCard card;
+        private volatile long lastUsedAt;
+
+        private LocalCard(RenderedCard card, long now) {
+            this.card = card;
+            this.lastUsedAt = now;
+        }
+
+        private RenderedCard use(long now) {
+            lastUsedAt = now;
+            return card;
+        }
+    }
+
+    /**
+     * Кандидат на показ: ID профиля и версия карточки
+     */
+    public record CardKey(Long profileId, long version) {}
+
+    /**
+     * Карточки для кандидатов в исходном порядке. Кандидаты без фото пропускаются
+     */
+    public List<RenderedCard> getCards(List<CardKey> keys) {
+        if (keys.isEmpty()) {
+            return List.of();
+        }
+        long now = System.currentTimeMillis();
+        Map<Long, RenderedCard> found = new HashMap<>();
+        List<CardKey> remoteLookups = new ArrayList<>();
+        for (CardKey key : keys) {
+            LocalCard local = nearCache.get(key.profileId());
+            if (local != null && local.card.card().version() == key.version() && local.card.expiresAt() > now) {
+                found.put(key.profileId(), local.use(now));
+            } else {
+                remoteLookups.add(key);
+            }
+        }
+        meterRegistry.counter("swipe.card.cache", "level", "local").increment(found.size());
+
+        List<CardKey> misses = remoteLookups.isEmpty() ? List.of() : loadFromRedis(remoteLookups, found, now);
+        if (!misses.isEmpty()) {
+            renderMisses(misses, found, now);
+        }
+
+        List<RenderedCard> result = new ArrayList<>(keys.size());
+        for (CardKey key : keys) {
+            RenderedCard card = found.get(key.profileId());
+            if (card != null && !card.photoFileIds().isEmpty()) {
+                result.add(card);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Текущая карточка профиля без проверки версии (для листания фото уже показанной карточки)
+     */
+    public Optional<RenderedCard> findCard(Long profileId) {
+        long now = System.currentTimeMillis();
+        LocalCard local = nearCache.get(profileId);
+        if (local != null && local.card.expiresAt() > now) {
+            return Optional.of(local.use(now));
+        }
+        Map<Long, RenderedCard> found = new HashMap<>();
+        renderMisses(List.of(new CardKey(profileId, 0)), found, now);
+        return Optional.ofNullable(found.get(profileId));
+    }
+
+    @Scheduled(fixedDelay = 300000)
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        nearCache.values().removeIf(cached -> cached.card.expiresAt() <= now);
+    }
+
+    private List<CardKey> loadFromRedis(List<CardKey> keys, Map<Long, RenderedCard> found, long now) {
+        List<String> redisKeys = keys.stream().map(key -> redisKey(key.profileId(), key.version())).toList();
+        List<String> values = redisCircuitBreaker.execute(
+            () -> stringRedisTemplate.opsForValue().multiGet(redisKeys), () -> null);
+
+        List<CardKey> misses = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            String json = values != null ? values.get(i) : null;
+            ProfileCard card = json != null ? parse(json) : null;
+            if (card != null) {
+                found.put(card.profileId(), remember(card, now));
+            } else {
+                misses.add(keys.get(i));
+            }
+        }
+        meterRegistry.counter("swipe.card.cache", "level", "redis").increment(keys.size() - misses.size());
+        meterRegistry.counter("swipe.card.cache", "level", "miss").increment(misses.size());
+        return misses;
+    }
+
+    private void renderMisses(List<CardKey> misses, Map<Long, RenderedCard> found, long now) {
+        List<Long> profileIds = misses.stream().map(CardKey::profileId).distinct().toList();
+        Map<String, String> toStore = new HashMap<>();
+        for (Profile profile : profileRepository.findByIdsWithUser(profileIds)) {
+            // Версия считается по загруженным сущностям: если профиль изменился после выборки кандидатов,
+            // свежая карточка сохраняется под своей новой версией
+            ProfileCard card = render(profile, profile.getVersion() + profile.getUser().getVersion());
+            found.put(card.profileId(), remember(card, now));
+            try {
+                toStore.put(redisKey(card.profileId(), card.version()), objectMapper.writeValueAsString(card));
+            } catch (JsonProcessingException e) {
+                log.warn("Failed to serialize profile card {}", profile.getId(), e);
+            }
+        }
+        if (!toStore.isEmpty()) {
+            redisCircuitBreaker.run(() -> stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection redis = (StringRedisConnection) connection;
+                toStore.forEach((key, json) -> redis.setEx(key, REDIS_TTL.toSeconds(), json));
+                return null;
+            }), () -> { });
+        }
+    }
+
+    private ProfileCard parse(String json) {
+        try {
+            return objectMapper.readValue(json, ProfileCard.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Corrupted profile card cache entry", e);
+            return null;
+        }
+    }
+
+    private RenderedCard remember(ProfileCard card, long now) {
+        RenderedCard rendered = new RenderedCard(card, buildMedia(card, false), buildMedia(card, true),
+            now + NEAR_CACHE_TTL.toMillis());
+        if (nearCache.size() >= NEAR_CACHE_MAX_SIZE) {
+            evictExpired();
+            if (nearCache.size() >= NEAR_CACHE_MAX_SIZE) {
+                // Популярные карточки показываются постоянно, поэтому вытесняются давно не показанные
+                OldestEntries.evict(nearCache, NEAR_CACHE_EVICTION_BATCH,
+                    cached -> cached.lastUsedAt, cached -> true);
+            }
+        }
+        nearCache.put(card.profileId(), new LocalCard(rendered, now));
+        return rendered;
+    }
+
+    private static List<InputMedia> buildMedia(ProfileCard card, boolean captionEveryPhoto) {
+        List<InputMedia> media = new ArrayList<>(card.photoFileIds().size());
+        for (int i = 0; i < card.photoFileIds().size(); i++) {
+            InputMediaPhoto photo = new InputMediaPhoto();
+            photo.setMedia(card.photoFileIds().get(i));
+            if (i == 0 || captionEveryPhoto) {
+                photo.setCaption(card.caption());
+            }
+            media.add(photo);
+        }
+        return List.copyOf(media);
+    }
+
+    private static ProfileCard render(Profile profile, long version) {
+        User user = profile.getUser();
+        StringBuilder sb = new StringBuilder();
+        sb.append("👤 ").append(user.getFirstName()).append(", ").append(user.getAge());
+        if (profile.getCity() != null) {
+            sb.append(" • ").append(profile.getCity());
+        }
+        sb.append("\n");
+
+        String bio = profile.getBio();
+        if (bio != null && !bio.isBlank() && !bio.equals(BIO_PLACEHOLDER)) {
+            if (bio.length() > MAX_BIO_LENGTH) {
+                bio = bio.substring(0, MAX_BIO_LENGTH - 3) + "...";
+            }
+            sb.append(bio).append("\n");
+        }
+        sb.append("\n👇 Выберите действие:");
+
+        List<String> photos = profile.getPhotoUrls() != null ? List.copyOf(profile.getPhotoUrls()) : List.of();
+        return new ProfileCard(profile.getId(), user.getId(), version, sb.toString(), photos);
+    }
+
+    private static String redisKey(Long profileId, long version) {
+        return KEY_PREFIX + profileId + ":" + version;
+    }
+}
@@ -0,0 +1,8 @@
+package com.bestproduct.dating.service;
+
+/**
+ * Профиль пользователя изменился так, что это видно в карточке или влияет на подбор кандидатов
+ * (фото, описание, местоположение, видимость). Публикуется внутри транзакции изменения
+ */
+public record ProfileChangedEvent(Long userId) {
+}
@@ -11,6 +11,7 @@ import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.GeometryFactory;
 import org.locationtech.jts.geom.Point;
 import org.locationtech.jts.geom.PrecisionModel;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -33,6 +34,8 @@ public class ProfileService {
     private final ProfileRepository profileRepository;
     private final UserRepository userRepository;
     private final AppConfig appConfig;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProfileCardCache profileCardCache;
     
     private static final GeometryFactory geometryFactory = 
         new GeometryFactory(new PrecisionModel(), 4326);
@@ -95,6 +98,7 @@ public class ProfileService {
         profile.setLocationUpdatedAt(LocalDateTime.now());
         
         profileRepository.save(profile);
+        eventPublisher.publishEvent(new ProfileChangedEvent(userId));
         log.debug("Updated location for user: userId={}", userId);
     }
 
@@ -114,6 +118,7 @@ public class ProfileService {
 
         profile.setPhotoUrls(photoUrls);
         profileRepository.save(profile);
+        eventPublisher.publishEvent(new ProfileChangedEvent(userId));
         log.debug("Updated photos for user: userId={}", userId);
     }
 
@@ -128,6 +133,7 @@ public class ProfileService {
 
         profile.setBio(bio);
         profileRepository.save(profile);
+        eventPublisher.publishEvent(new ProfileChangedEvent(userId));
     }
 
     /**
@@ -185,6 +191,7 @@ public class ProfileService {
 
         profile.setIsVisible(!profile.getIsVisible());
         profileRepository.save(profile);
+        eventPublisher.publishEvent(new ProfileChangedEvent(userId));
     }
 
     /**
@@ -239,6 +246,30 @@ public class ProfileService {
         }
     }
 
+    /**
+     * Карточки ближайших кандидатов для свайпа.
+     * Кандидаты выбираются как ID и версии, карточки берутся из кэша; сущности грузятся только при промахе
+     */
+    public List<ProfileCardCache.RenderedCard> findSwipeCards(Long userId, int limit) {
+        List<ProfileCardCache.CardKey> keys = profileRepository.findSwipeCandidates(userId, limit).stream()
+            .map(view -> new ProfileCardCache.CardKey(view.getProfileId(), view.getCardVersion()))
+            .toList();
+        return profileCardCache.getCards(keys);
+    }
+
+    /**
+     * Карточки ближайших кандидатов для свайпа (асинхронно, для заблаговременной дозагрузки)
+     */
+    @Async("backgroundTaskExecutor")
+    public CompletableFuture<List<ProfileCardCache.RenderedCard>> findSwipeCardsAsync(Long userId, int limit) {
+        try {
+            return CompletableFuture.completedFuture(findSwipeCards(userId, limit));
+        } catch (Exception e) {
+            log.error("Error finding swipe candidates for user {}", userId, e);
+            return CompletableFuture.failedFuture(new CompletionException(e));
+        }
+    }
+
     /**
      * Найти профили поблизости (синхронная версия для обратной совместимости)
      * @deprecated Используйте findNearbyProfilesAsync для лучшей производительности
@@ -6,6 +6,7 @@ import io.github.bucket4j.Bucket;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
@@ -20,9 +21,20 @@ import java.util.concurrent.ConcurrentHashMap;
 @Slf4j
 public class RateLimitService {
 
-    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisTemplate<String, Long> longRedisTemplate;
     private final AppConfig appConfig;
+    private final RedisCircuitBreaker redisCircuitBreaker;
     private final Map<Long, Bucket> buckets = new ConcurrentHashMap<>();
+    // Локальные счетчики нарушений на время недоступности Redis, с тем же окном, что и TTL ключа в Redis
+    private final Map<Long, LocalViolations> localViolations = new ConcurrentHashMap<>();
+
+    private static final Duration VIOLATIONS_WINDOW = Duration.ofHours(24);
+
+    private record LocalViolations(long count, long expiresAt) {
+        private boolean isExpired(long now) {
+            return expiresAt <= now;
+        }
+    }
 
     /**
      * Проверить, может ли пользователь выполнить действие
@@ -67,10 +79,12 @@ public class RateLimitService {
      */
     private void incrementViolationCount(Long userId) {
         String key = "rate_limit:violations:" + userId;
-        Long violations = redisTemplate.opsForValue().increment(key);
-        
-        // Установить TTL 24 часа
-        redisTemplate.expire(key, Duration.ofHours(24));
+        Long violations = redisCircuitBreaker.execute(() -> {
+            Long value = longRedisTemplate.opsForValue().increment(key);
+            // Установить TTL 24 часа
+            longRedisTemplate.expire(key, VIOLATIONS_WINDOW);
+            return value;
+        }, () -> incrementLocalViolations(userId));
         
         // Проверить порог для бана
         if (violations != null && violations >= appConfig.getSecurity().getRateLimit().getBanThreshold()) {
@@ -84,8 +98,27 @@ public class RateLimitService {
      */
     public Long getViolationCount(Long userId) {
         String key = "rate_limit:violations:" + userId;
-        Object value = redisTemplate.opsForValue().get(key);
-        return value != null ? Long.parseLong(value.toString()) : 0L;
+        Long value = redisCircuitBreaker.execute(() -> longRedisTemplate.opsForValue().get(key),
+            () -> localViolationCount(userId));
+        return value != null ? value : 0L;
+    }
+
+    @Scheduled(fixedDelay = 3600000)
+    public void evictExpiredViolations() {
+        long now = System.currentTimeMillis();
+        localViolations.values().removeIf(violations -> violations.isExpired(now));
+    }
+
+    private long incrementLocalViolations(Long userId) {
+        long now = System.currentTimeMillis();
+        return localViolations.compute(userId, (id, current) -> current == null || current.isExpired(now)
+            ? new LocalViolations(1, now + VIOLATIONS_WINDOW.toMillis())
+            : new LocalViolations(current.count() + 1, current.expiresAt())).count();
+    }
+
+    private Long localViolationCount(Long userId) {
+        LocalViolations violations = localViolations.get(userId);
+        return violations != null && !violations.isExpired(System.currentTimeMillis()) ? violations.count() : null;
     }
 
     /**
@@ -93,7 +126,8 @@ public class RateLimitService {
      */
     public void resetViolations(Long userId) {
         String key = "rate_limit:violations:" + userId;
-        redisTemplate.delete(key);
+        localViolations.remove(userId);
+        redisCircuitBreaker.run(() -> longRedisTemplate.delete(key), () -> { });
         log.info("Violations reset for user: {}", userId);
     }
 
@@ -0,0 +1,180 @@
+package com.bestproduct.dating.service;
+
+import com.bestproduct.dating.config.AppConfig;
+import com.bestproduct.dating.util.UpdateTrace;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker для обращений к Redis.
+ * После failureThreshold ошибок подряд Redis считается недоступным на openDurationMs:
+ * вызовы сразу уходят в локальный fallback, не занимая потоки обработки ожиданием таймаутов.
+ * По истечении паузы пропускается одна пробная команда (HALF_OPEN).
+ */
+@Service
+@Slf4j
+public class RedisCircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    /**
+     * Глубина вложенных вызовов execute в потоке и время fallback'ов внутри внешнего вызова
+     */
+    private static final class CallTiming {
+        private int depth;
+        private long fallbackNanos;
+    }
+
+    private static final ThreadLocal<CallTiming> CALL_TIMING = ThreadLocal.withInitial(CallTiming::new);
+
+    private final AppConfig appConfig;
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicLong openedAt = new AtomicLong();
+    private final Counter fallbackCounter;
+
+    public RedisCircuitBreaker(AppConfig appConfig, MeterRegistry meterRegistry) {
+        this.appConfig = appConfig;
+        this.fallbackCounter = Counter.builder("redis.circuit.fallback")
+            .description("Вызовы Redis, обработанные локальным fallback")
+            .register(meterRegistry);
+        Gauge.builder("redis.circuit.state", state, s -> s.get().ordinal())
+            .description("0 - CLOSED, 1 - OPEN, 2 - HALF_OPEN")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Выполнить команду Redis, при ошибке или открытом breaker'е вернуть результат fallback.
+     * В стадию REDIS трассы апдейта попадает только время самой команды и только у внешнего вызова:
+     * вложенные вызовы уже входят в его время, а fallback (чаще всего SQL) учитывается своими стадиями
+     */
+    public <T> T execute(Supplier<T> redisCall, Supplier<T> fallback) {
+        if (!allowRequest()) {
+            fallbackCounter.increment();
+            return runFallback(fallback);
+        }
+        CallTiming timing = CALL_TIMING.get();
+        boolean outermost = timing.depth == 0;
+        if (outermost) {
+            timing.fallbackNanos = 0;
+        }
+        timing.depth++;
+        long startedAt = System.nanoTime();
+        boolean settled = false;
+        try {
+            T result = redisCall.get();
+            onSuccess();
+            settled = true;
+            return result;
+        } catch (DataAccessException e) {
+            onFailure(e);
+            settled = true;
+        } finally {
+            timing.depth--;
+            if (!settled) {
+                // Любое другое исключение пробной команды не должно оставить breaker в HALF_OPEN навсегда
+                reopenAfterProbe();
+            }
+            if (outermost) {
+                long redisNanos = System.nanoTime() - startedAt - timing.fallbackNanos;
+                UpdateTrace.record(UpdateTrace.Stage.REDIS, "redis", redisNanos);
+            }
+        }
+        fallbackCounter.increment();
+        return runFallback(fallback);
+    }
+
+    /**
+     * Fallback вложенного вызова выполняется внутри команды внешнего - его время вычитается из стадии REDIS
+     */
+    private static <T> T runFallback(Supplier<T> fallback) {
+        CallTiming timing = CALL_TIMING.get();
+        if (timing.depth == 0) {
+            return fallback.get();
+        }
+        long startedAt = System.nanoTime();
+        try {
+            return fallback.get();
+        } finally {
+            timing.fallbackNanos += System.nanoTime() - startedAt;
+        }
+    }
+
+    /**
+     * Выполнить команду Redis без результата
+     */
+    public void run(Runnable redisCall, Runnable fallback) {
+        execute(() -> {
+            redisCall.run();
+            return null;
+        }, () -> {
+            fallback.run();
+            return null;
+        });
+    }
+
+    /**
+     * Доступен ли Redis с точки зрения breaker'а
+     */
+    public boolean isAvailable() {
+        return state.get() != State.OPEN;
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    private boolean allowRequest() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN) {
+            long openDurationMs = appConfig.getRedisResilience().getOpenDurationMs();
+            // Только один поток переводит breaker в HALF_OPEN и выполняет пробную команду
+            return System.currentTimeMillis() - openedAt.get() >= openDurationMs
+                && state.compareAndSet(State.OPEN, State.HALF_OPEN);
+        }
+        return false;
+    }
+
+    private void onSuccess() {
+        consecutiveFailures.set(0);
+        if (state.getAndSet(State.CLOSED) != State.CLOSED) {
+            log.info("Redis is available again, circuit closed");
+        }
+    }
+
+    private void reopenAfterProbe() {
+        openedAt.set(System.currentTimeMillis());
+        if (state.compareAndSet(State.HALF_OPEN, State.OPEN)) {
+            log.warn("Redis probe failed with an unexpected error, circuit reopened");
+        }
+    }
+
+    private void onFailure(DataAccessException e) {
+        int failures = consecutiveFailures.incrementAndGet();
+        State current = state.get();
+        if (current == State.HALF_OPEN
+                || (current == State.CLOSED && failures >= appConfig.getRedisResilience().getFailureThreshold())) {
+            openedAt.set(System.currentTimeMillis());
+            state.set(State.OPEN);
+            log.warn("Redis circuit opened after {} failures: {}", failures, e.getMessage());
+        } else {
+            log.debug("Redis command failed ({} in a row): {}", failures, e.getMessage());
+        }
+    }
+}
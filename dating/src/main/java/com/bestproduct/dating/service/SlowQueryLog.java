@@ -0,0 +1,71 @@
+package com.bestproduct.dating.service;
+
+import com.bestproduct.dating.config.AppConfig;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Журнал последних медленных SQL-запросов в памяти (кольцо фиксированного размера).
+ * Запросы хранятся нормализованными: литералы и списки параметров заменены на "?",
+ * поэтому значения пользовательских данных в журнал не попадают.
+ */
+@Component
+public class SlowQueryLog {
+
+    private static final int MAX_SQL_LENGTH = 2000;
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.])-?\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    public record SlowQuery(Instant at, String sql, long durationMs, String handler, String thread) {
+    }
+
+    private final AppConfig appConfig;
+    private final ArrayDeque<SlowQuery> ring = new ArrayDeque<>();
+
+    public SlowQueryLog(AppConfig appConfig) {
+        this.appConfig = appConfig;
+    }
+
+    /**
+     * Записать медленный запрос; самый старый вытесняется при заполнении кольца
+     */
+    public void add(String sql, long durationMs, String handler) {
+        SlowQuery query = new SlowQuery(Instant.now(), normalize(sql), durationMs, handler,
+            Thread.currentThread().getName());
+        int capacity = Math.max(1, appConfig.getObservability().getSlowQueryRingSize());
+        synchronized (ring) {
+            while (ring.size() >= capacity) {
+                ring.pollFirst();
+            }
+            ring.addLast(query);
+        }
+    }
+
+    /**
+     * Записи журнала, новые первыми
+     */
+    public List<SlowQuery> recent() {
+        synchronized (ring) {
+            List<SlowQuery> queries = new ArrayList<>(ring);
+            return queries.reversed();
+        }
+    }
+
+    /**
+     * Привести запрос к общему виду: без литералов, с одним "?" вместо списка параметров и без лишних пробелов
+     */
+    public static String normalize(String sql) {
+        String normalized = STRING_LITERAL.matcher(sql).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = IN_LIST.matcher(normalized).replaceAll("(?...)");
+        normalized = WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+        return normalized.length() > MAX_SQL_LENGTH ? normalized.substring(0, MAX_SQL_LENGTH) + "..." : normalized;
+    }
+}
@@ -1,6 +1,5 @@
 package com.bestproduct.dating.service;
 
-import com.bestproduct.dating.domain.entity.Notification;
 import com.bestproduct.dating.domain.entity.User;
 import com.bestproduct.dating.repository.NotificationRepository;
 import com.bestproduct.dating.repository.UserRepository;
@@ -28,6 +27,8 @@ public class TelegramNotificationService {
     private final UserRepository userRepository;
     private final ApplicationContext applicationContext;
 
+    private static final int DIGEST_MAX_ITEMS = 20;
+
     /**
      * Отправить уведомление о новом лайке в Telegram
      */
@@ -110,6 +111,20 @@ public class TelegramNotificationService {
         }
     }
 
+    /**
+     * Напомнить о скором начале события
+     */
+    @Async("notificationExecutor")
+    public void sendEventStartingSoonNotification(Long userId, Long eventId, String eventTitle) {
+        try {
+            String message = String.format("⏰ Событие \"%s\" скоро начнется! Не опаздывайте 🍻", eventTitle);
+
+            sendTelegramMessage(userId, message);
+        } catch (Exception e) {
+            log.error("Error sending event starting soon notification to user {}", userId, e);
+        }
+    }
+
     /**
      * Отправить уведомление об одобрении заявки на событие
      */
@@ -238,34 +253,35 @@ public class TelegramNotificationService {
     }
 
     /**
-     * Отправить все непрочитанные уведомления пользователю
+     * Отправить все непрочитанные уведомления пользователю.
+     * Уведомления помечаются прочитанными одним UPDATE ... RETURNING, в дайджест попадают
+     * только последние DIGEST_MAX_ITEMS штук
      */
     @Transactional
     public void sendUnreadNotifications(Long userId) {
         try {
-            List<Notification> unreadNotifications = notificationRepository
-                .findUnreadNotificationsByUserId(userId);
+            List<NotificationRepository.UnreadDigestRow> digest = notificationRepository
+                .markAllAsReadReturningDigest(userId, DIGEST_MAX_ITEMS);
 
-            if (unreadNotifications.isEmpty()) {
+            if (digest.isEmpty()) {
                 return;
             }
 
-            StringBuilder messageText = new StringBuilder("📬 У вас " + unreadNotifications.size() + " новых уведомлений:\n\n");
+            long total = digest.get(0).getTotal();
+            StringBuilder messageText = new StringBuilder("📬 У вас " + total + " новых уведомлений:\n\n");
             
-            for (Notification notification : unreadNotifications) {
+            for (NotificationRepository.UnreadDigestRow notification : digest) {
                 messageText.append("• ").append(notification.getTitle()).append("\n");
                 messageText.append("  ").append(notification.getMessage()).append("\n\n");
-                
-                // Пометить как прочитанное
-                notification.markAsRead();
             }
 
-            notificationRepository.saveAll(unreadNotifications);
+            if (total > digest.size()) {
+                messageText.append("…и еще ").append(total - digest.size()).append(" уведомлений");
+            }
+
             sendTelegramMessage(userId, messageText.toString());
         } catch (Exception e) {
             log.error("Error sending unread notifications to user {}", userId, e);
         }
     }
 }
-
-
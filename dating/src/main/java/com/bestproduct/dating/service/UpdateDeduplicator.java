@@ -0,0 +1,161 @@
+package com.bestproduct.dating.service;
+
+import com.bestproduct.dating.util.RecentIdFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Отсев повторно доставленных апдейтов Telegram (после таймаутов и перезапусков) до любой работы обработчиков.
+ * Проверяются update_id и ID callback query. Локально - скользящее окно (фильтр Блума + кольцевой буфер):
+ * точные повторы отсекаются без сети. Остальные ID одним скриптом записываются в Redis
+ * (множества окон "updates:seen:{u|c}:{окно}" с TTL) - это защищает и после перезапуска.
+ * Без Redis решение принимается только по локальному окну.
+ */
+@Service
+@Slf4j
+public class UpdateDeduplicator {
+
+    private static final String KEY_PREFIX = "updates:seen:";
+    // update_id растут монотонно, поэтому множество на каждые 10000 ID остается небольшим
+    private static final long UPDATE_ID_BUCKET = 10_000;
+    // ID callback query не упорядочены, для них окно - по времени
+    private static final long CALLBACK_BUCKET_MS = Duration.ofMinutes(10).toMillis();
+    private static final Duration SEEN_TTL = Duration.ofHours(1);
+    private static final int WINDOW_SIZE = 200_000;
+    private static final int RING_SIZE = 4096;
+
+    // Для каждого ID i: KEYS[2i-1] - множество текущего окна, KEYS[2i] - предыдущего; ARGV[i] - ID,
+    // последний ARGV - TTL в секундах. Возвращает 1, если хотя бы один ID уже встречался
+    private static final DefaultRedisScript<Long> MARK_SEEN = new DefaultRedisScript<>(
+        "local seen = 0 " +
+        "for i = 1, #ARGV - 1 do " +
+        "  local current = KEYS[2 * i - 1] " +
+        "  if redis.call('SISMEMBER', KEYS[2 * i], ARGV[i]) == 1 or redis.call('SADD', current, ARGV[i]) == 0 then " +
+        "    seen = 1 " +
+        "  else " +
+        "    redis.call('EXPIRE', current, ARGV[#ARGV]) " +
+        "  end " +
+        "end " +
+        "return seen",
+        Long.class);
+
+    // Те же KEYS и ARGV, что у MARK_SEEN: снять отметки из обоих окон
+    private static final DefaultRedisScript<Long> FORGET = new DefaultRedisScript<>(
+        "for i = 1, #ARGV - 1 do " +
+        "  redis.call('SREM', KEYS[2 * i - 1], ARGV[i]) " +
+        "  redis.call('SREM', KEYS[2 * i], ARGV[i]) " +
+        "end " +
+        "return 1",
+        Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisCircuitBreaker redisCircuitBreaker;
+    private final MeterRegistry meterRegistry;
+    private final RecentIdFilter updates = new RecentIdFilter(WINDOW_SIZE, RING_SIZE);
+    private final RecentIdFilter callbacks = new RecentIdFilter(WINDOW_SIZE, RING_SIZE);
+
+    public UpdateDeduplicator(StringRedisTemplate stringRedisTemplate, RedisCircuitBreaker redisCircuitBreaker,
+                              MeterRegistry meterRegistry) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.redisCircuitBreaker = redisCircuitBreaker;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Апдейт уже обрабатывался. Вызов отмечает апдейт как обработанный
+     */
+    public boolean isDuplicate(Update update) {
+        boolean hasUpdateId = update.getUpdateId() != null;
+        boolean hasCallback = update.hasCallbackQuery();
+        long updateId = hasUpdateId ? update.getUpdateId() : 0;
+        long callbackId = hasCallback ? hash(update.getCallbackQuery().getId()) : 0;
+
+        // Обе проверки выполняются, чтобы оба ID попали в окно
+        boolean localDuplicate = hasUpdateId && updates.checkAndAdd(updateId);
+        localDuplicate |= hasCallback && callbacks.checkAndAdd(callbackId);
+        if (localDuplicate) {
+            meterRegistry.counter("telegram.updates.duplicate", "layer", "local").increment();
+            return true;
+        }
+
+        List<String> keys = new ArrayList<>(4);
+        List<String> args = new ArrayList<>(3);
+        if (!collectIds(update, keys, args)) {
+            return false;
+        }
+
+        boolean seenBefore = redisCircuitBreaker.execute(
+            () -> Long.valueOf(1).equals(stringRedisTemplate.execute(MARK_SEEN, keys, args.toArray())),
+            () -> false);
+        if (seenBefore) {
+            meterRegistry.counter("telegram.updates.duplicate", "layer", "redis").increment();
+            log.debug("Dropped redelivered update {}", update.getUpdateId());
+        }
+        return seenBefore;
+    }
+
+    /**
+     * Снять отметку с апдейта, обработка которого не завершилась до остановки,
+     * чтобы следующий экземпляр обработал его повторно. Локальное окно не меняется:
+     * повтор придет уже в другой процесс
+     */
+    public void forget(Update update) {
+        List<String> keys = new ArrayList<>(4);
+        List<String> args = new ArrayList<>(3);
+        if (collectIds(update, keys, args)) {
+            redisCircuitBreaker.run(() -> stringRedisTemplate.execute(FORGET, keys, args.toArray()),
+                () -> log.warn("Redis unavailable, update {} stays marked as seen", update.getUpdateId()));
+        }
+    }
+
+    /**
+     * Ключи окон и ID апдейта для скриптов, последним аргументом - TTL
+     *
+     * @return false, если у апдейта нет ни update_id, ни callback query
+     */
+    private boolean collectIds(Update update, List<String> keys, List<String> args) {
+        if (update.getUpdateId() != null) {
+            long updateId = update.getUpdateId();
+            addWindow(keys, "u", updateId / UPDATE_ID_BUCKET);
+            args.add(Long.toString(updateId));
+        }
+        if (update.hasCallbackQuery()) {
+            addWindow(keys, "c", System.currentTimeMillis() / CALLBACK_BUCKET_MS);
+            args.add(Long.toString(hash(update.getCallbackQuery().getId())));
+        }
+        if (args.isEmpty()) {
+            return false;
+        }
+        args.add(String.valueOf(SEEN_TTL.toSeconds()));
+        return true;
+    }
+
+    /**
+     * Ключи текущего и предыдущего окна: повтор мог прийти сразу после смены окна
+     */
+    private static void addWindow(List<String> keys, String type, long bucket) {
+        keys.add(KEY_PREFIX + type + ":" + bucket);
+        keys.add(KEY_PREFIX + type + ":" + (bucket - 1));
+    }
+
+    /**
+     * 64-битный хеш строкового ID (FNV-1a)
+     */
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
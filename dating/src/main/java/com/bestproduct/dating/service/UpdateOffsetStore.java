@@ -0,0 +1,105 @@
+package com.bestproduct.dating.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Состояние long polling между перезапусками бота: последний обработанный update_id
+ * и апдейты, которые остановившийся экземпляр принял, но не успел обработать.
+ * Telegram хранит неподтвержденные апдейты не дольше суток, столько же живут и ключи.
+ */
+@Service
+@Slf4j
+public class UpdateOffsetStore {
+
+    private static final String OFFSET_KEY = "telegram:updates:offset";
+    private static final String PENDING_KEY = "telegram:updates:pending";
+    private static final Duration STATE_TTL = Duration.ofHours(24);
+
+    // KEYS[1] - смещение, KEYS[2] - список необработанных; ARGV[1] - TTL в секундах, ARGV[2] - смещение,
+    // далее - необработанные апдейты в JSON
+    private static final DefaultRedisScript<Long> SAVE = new DefaultRedisScript<>(
+        "redis.call('SET', KEYS[1], ARGV[2], 'EX', ARGV[1]) " +
+        "redis.call('DEL', KEYS[2]) " +
+        "for i = 3, #ARGV do redis.call('RPUSH', KEYS[2], ARGV[i]) end " +
+        "if #ARGV > 2 then redis.call('EXPIRE', KEYS[2], ARGV[1]) end " +
+        "return #ARGV - 2",
+        Long.class);
+
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> TAKE_PENDING = new DefaultRedisScript<>(
+        "local pending = redis.call('LRANGE', KEYS[1], 0, -1) " +
+        "redis.call('DEL', KEYS[1]) " +
+        "return pending",
+        List.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisCircuitBreaker redisCircuitBreaker;
+    private final ObjectMapper objectMapper;
+
+    public UpdateOffsetStore(StringRedisTemplate stringRedisTemplate, RedisCircuitBreaker redisCircuitBreaker,
+                             ObjectMapper objectMapper) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.redisCircuitBreaker = redisCircuitBreaker;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Сохранить смещение и необработанные апдейты (при остановке)
+     */
+    public void save(int offset, List<Update> pending) {
+        List<String> args = new ArrayList<>(pending.size() + 2);
+        args.add(String.valueOf(STATE_TTL.toSeconds()));
+        args.add(String.valueOf(offset));
+        for (Update update : pending) {
+            try {
+                args.add(objectMapper.writeValueAsString(update));
+            } catch (JsonProcessingException e) {
+                log.error("Failed to serialize pending update {}", update.getUpdateId(), e);
+            }
+        }
+        redisCircuitBreaker.run(
+            () -> stringRedisTemplate.execute(SAVE, List.of(OFFSET_KEY, PENDING_KEY), args.toArray()),
+            () -> log.warn("Redis unavailable, update offset {} and {} pending updates not saved",
+                offset, pending.size()));
+    }
+
+    /**
+     * Последний обработанный update_id или null, если он неизвестен
+     */
+    public Integer loadOffset() {
+        String value = redisCircuitBreaker.execute(() -> stringRedisTemplate.opsForValue().get(OFFSET_KEY), () -> null);
+        return value != null ? Integer.valueOf(value) : null;
+    }
+
+    /**
+     * Забрать сохраненные необработанные апдейты; повторный вызов вернет пустой список
+     */
+    @SuppressWarnings("unchecked")
+    public List<Update> takePending() {
+        List<String> values = redisCircuitBreaker.execute(
+            () -> (List<String>) stringRedisTemplate.execute(TAKE_PENDING, List.of(PENDING_KEY)),
+            List::of);
+        if (values == null) {
+            return List.of();
+        }
+        List<Update> pending = new ArrayList<>(values.size());
+        for (String value : values) {
+            try {
+                pending.add(objectMapper.readValue(value, Update.class));
+            } catch (JsonProcessingException e) {
+                log.error("Failed to deserialize pending update, skipping it", e);
+            }
+        }
+        return pending;
+    }
+}
@@ -0,0 +1,169 @@
+package com.bestproduct.dating.telegram;
+
+import com.bestproduct.dating.config.AppConfig;
+import com.bestproduct.dating.service.UpdateDeduplicator;
+import com.bestproduct.dating.service.UpdateOffsetStore;
+import com.bestproduct.dating.telegram.handler.PhotoAlbumCollector;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.TelegramBotsApi;
+import org.telegram.telegrambots.meta.api.methods.updates.GetUpdates;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.generics.BotSession;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Запуск и остановка long polling бота.
+ * Запуск: подтвердить Telegram апдейты до сохраненного смещения (их уже обработал прошлый экземпляр),
+ * дообработать сохраненные необработанные апдейты и только затем начать получать новые.
+ * Остановка: сначала прекратить получение апдейтов, затем до дедлайна доработать очереди апдейтов,
+ * сохранить собираемые альбомы, дождаться исходящих отправок и сохранить смещение
+ * вместе с апдейтами, которые так и не были обработаны.
+ * Апдейт, обработка которого не закончилась к дедлайну, тоже сохраняется и будет обработан повторно:
+ * повтор лучше потери, если процесс завершится посреди обработки.
+ * Фаза выше, чем у executor'ов, поэтому остановка выполняется, пока они еще принимают задачи.
+ */
+@Component
+@Slf4j
+public class BotLifecycleCoordinator implements SmartLifecycle {
+
+    private static final long IDLE_POLL_MS = 50;
+
+    private final DatingBot datingBot;
+    private final TelegramBotsApi telegramBotsApi;
+    private final UpdateAdmissionController updateAdmissionController;
+    private final PhotoAlbumCollector photoAlbumCollector;
+    private final UpdateOffsetStore updateOffsetStore;
+    private final UpdateDeduplicator updateDeduplicator;
+    private final AppConfig appConfig;
+    private final List<Executor> outboundExecutors;
+
+    private volatile BotSession botSession;
+
+    public BotLifecycleCoordinator(DatingBot datingBot,
+                                   TelegramBotsApi telegramBotsApi,
+                                   UpdateAdmissionController updateAdmissionController,
+                                   PhotoAlbumCollector photoAlbumCollector,
+                                   UpdateOffsetStore updateOffsetStore,
+                                   UpdateDeduplicator updateDeduplicator,
+                                   AppConfig appConfig,
+                                   @Qualifier("telegramBotExecutor") Executor telegramBotExecutor,
+                                   @Qualifier("notificationExecutor") Executor notificationExecutor) {
+        this.datingBot = datingBot;
+        this.telegramBotsApi = telegramBotsApi;
+        this.updateAdmissionController = updateAdmissionController;
+        this.photoAlbumCollector = photoAlbumCollector;
+        this.updateOffsetStore = updateOffsetStore;
+        this.updateDeduplicator = updateDeduplicator;
+        this.appConfig = appConfig;
+        this.outboundExecutors = List.of(telegramBotExecutor, notificationExecutor);
+    }
+
+    @Override
+    public void start() {
+        resumeFromSavedOffset();
+        try {
+            botSession = telegramBotsApi.registerBot(datingBot);
+            log.info("Telegram bot successfully registered: {}", datingBot.getBotUsername());
+        } catch (TelegramApiException e) {
+            log.error("Failed to register Telegram bot", e);
+            throw new IllegalStateException("Failed to register Telegram bot", e);
+        }
+    }
+
+    @Override
+    public void stop() {
+        BotSession session = botSession;
+        if (session == null) {
+            return;
+        }
+        long startedAt = System.nanoTime();
+        long deadline = startedAt + Duration.ofMillis(appConfig.getShutdown().getDrainTimeoutMs()).toNanos();
+
+        session.stop();
+        botSession = null;
+        log.info("Long polling stopped, draining updates");
+
+        List<Update> unprocessed = updateAdmissionController.drain(Duration.ofNanos(remaining(deadline)));
+        // Недоработанные апдейты уже отмечены как увиденные - без этого новый экземпляр отбросит их как дубли
+        unprocessed.forEach(updateDeduplicator::forget);
+        // Альбомы, собранные из уже обработанных апдейтов, сохраняются без ожидания паузы
+        int albums = photoAlbumCollector.flushPending();
+        boolean idle = awaitOutboundIdle(deadline);
+
+        int offset = updateAdmissionController.committedOffset();
+        updateOffsetStore.save(offset, unprocessed);
+        log.info("Bot stopped in {} ms: offset={}, unprocessed={}, flushed albums={}, outbound idle={}",
+            Duration.ofNanos(System.nanoTime() - startedAt).toMillis(), offset, unprocessed.size(), albums, idle);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return botSession != null;
+    }
+
+    @Override
+    public int getPhase() {
+        // Останавливается раньше executor'ов (ExecutorConfigurationSupport.DEFAULT_PHASE)
+        return SmartLifecycle.DEFAULT_PHASE;
+    }
+
+    /**
+     * Подтвердить обработанные апдейты и поставить в очередь оставшиеся от прошлого экземпляра
+     */
+    private void resumeFromSavedOffset() {
+        Integer offset = updateOffsetStore.loadOffset();
+        if (offset != null && offset > 0) {
+            // getUpdates со смещением подтверждает все апдейты до него: Telegram не пришлет их повторно
+            GetUpdates confirm = new GetUpdates();
+            confirm.setOffset(offset + 1);
+            confirm.setLimit(1);
+            confirm.setTimeout(0);
+            try {
+                datingBot.execute(confirm);
+                log.info("Resuming long polling after update {}", offset);
+            } catch (TelegramApiException e) {
+                log.warn("Failed to confirm updates up to {}, duplicates will be dropped by deduplication", offset, e);
+            }
+        }
+
+        List<Update> pending = updateOffsetStore.takePending();
+        pending.forEach(datingBot::onUpdateReceived);
+        if (!pending.isEmpty()) {
+            log.info("Replayed {} updates left unprocessed by the previous instance", pending.size());
+        }
+    }
+
+    /**
+     * Дождаться, пока executor'ы отправки и обработки опустеют, но не дольше дедлайна
+     */
+    private boolean awaitOutboundIdle(long deadline) {
+        try {
+            while (System.nanoTime() < deadline) {
+                if (outboundExecutors.stream().allMatch(BotLifecycleCoordinator::isIdle)) {
+                    return true;
+                }
+                Thread.sleep(IDLE_POLL_MS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    private static boolean isIdle(Executor executor) {
+        return !(executor instanceof ThreadPoolTaskExecutor pool)
+            || (pool.getActiveCount() == 0 && pool.getQueueSize() == 0);
+    }
+
+    private static long remaining(long deadline) {
+        return Math.max(0, deadline - System.nanoTime());
+    }
+}
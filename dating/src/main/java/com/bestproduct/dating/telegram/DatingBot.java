@@ -2,21 +2,30 @@ package com.bestproduct.dating.telegram;
 
 import com.bestproduct.dating.config.TelegramConfig;
 import com.bestproduct.dating.service.RateLimitService;
+import com.bestproduct.dating.service.UpdateDeduplicator;
 import com.bestproduct.dating.telegram.handler.*;
+import com.bestproduct.dating.util.UpdateTrace;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 import org.telegram.telegrambots.bots.TelegramLongPollingBot;
+import org.telegram.telegrambots.meta.api.methods.AnswerCallbackQuery;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.send.SendMediaGroup;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.methods.send.SendPhoto;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageMedia;
+import org.telegram.telegrambots.meta.api.objects.Message;
 import org.telegram.telegrambots.meta.api.objects.Update;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 
+import java.io.Serializable;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Executor;
 
 /**
- * Основной класс Telegram бота с асинхронной обработкой
+ * Основной класс Telegram бота с асинхронной обработкой.
+ * Каждый апдейт обрабатывается внутри UpdateTrace; запросы к Telegram API через execute учитываются в ней
  */
 @Component
 @Slf4j
@@ -24,13 +33,16 @@ public class DatingBot extends TelegramLongPollingBot {
 
     private final TelegramConfig telegramConfig;
     private final RateLimitService rateLimitService;
+    private final UpdateDeduplicator updateDeduplicator;
     private final Map<String, CommandHandler> commandHandlers;
     private final CallbackQueryHandler callbackQueryHandler;
     private final MessageHandler messageHandler;
-    private final Executor telegramBotExecutor;
+    private final UpdateAdmissionController updateAdmissionController;
+    private final UpdateLatencyRecorder updateLatencyRecorder;
 
     public DatingBot(TelegramConfig telegramConfig,
                    RateLimitService rateLimitService,
+                   UpdateDeduplicator updateDeduplicator,
                    StartCommandHandler startCommandHandler,
                    ProfileCommandHandler profileCommandHandler,
                    SwipeCommandHandler swipeCommandHandler,
@@ -40,12 +52,15 @@ public class DatingBot extends TelegramLongPollingBot {
                    HelpCommandHandler helpCommandHandler,
                    CallbackQueryHandler callbackQueryHandler,
                    MessageHandler messageHandler,
-                   @Qualifier("telegramBotExecutor") Executor telegramBotExecutor) {
+                   UpdateAdmissionController updateAdmissionController,
+                   UpdateLatencyRecorder updateLatencyRecorder) {
         this.telegramConfig = telegramConfig;
         this.rateLimitService = rateLimitService;
+        this.updateDeduplicator = updateDeduplicator;
         this.callbackQueryHandler = callbackQueryHandler;
         this.messageHandler = messageHandler;
-        this.telegramBotExecutor = telegramBotExecutor;
+        this.updateAdmissionController = updateAdmissionController;
+        this.updateLatencyRecorder = updateLatencyRecorder;
 
         // Регистрация обработчиков команд
         this.commandHandlers = new HashMap<>();
@@ -70,15 +85,50 @@ public class DatingBot extends TelegramLongPollingBot {
 
     @Override
     public void onUpdateReceived(Update update) {
-        // Асинхронная обработка в отдельном потоке
-        telegramBotExecutor.execute(() -> processUpdate(update));
+        // Асинхронная обработка в порядке приоритета класса апдейта; при перегрузке - ответ "бот занят"
+        long receivedAt = System.nanoTime();
+        updateAdmissionController.submit(update,
+            () -> processUpdate(update, receivedAt),
+            () -> sendBusyMessage(update));
+    }
+
+    @Override
+    public <T extends Serializable, Method extends BotApiMethod<T>> T execute(Method method) throws TelegramApiException {
+        return UpdateTrace.measure(UpdateTrace.Stage.TELEGRAM, method.getMethod(), () -> super.execute(method));
+    }
+
+    @Override
+    public List<Message> execute(SendMediaGroup sendMediaGroup) throws TelegramApiException {
+        return UpdateTrace.measure(UpdateTrace.Stage.TELEGRAM, SendMediaGroup.PATH, () -> super.execute(sendMediaGroup));
+    }
+
+    @Override
+    public Serializable execute(EditMessageMedia editMessageMedia) throws TelegramApiException {
+        return UpdateTrace.measure(UpdateTrace.Stage.TELEGRAM, EditMessageMedia.PATH, () -> super.execute(editMessageMedia));
+    }
+
+    /**
+     * Отправить фото. execute(SendPhoto) в библиотеке final, поэтому фото отправляются
+     * через этот метод, чтобы запрос попал в трассу апдейта
+     */
+    public Message sendPhoto(SendPhoto sendPhoto) throws TelegramApiException {
+        return UpdateTrace.measure(UpdateTrace.Stage.TELEGRAM, SendPhoto.PATH, () -> execute(sendPhoto));
     }
 
     /**
      * Обработка обновления (выполняется асинхронно)
+     *
+     * @param receivedAt момент получения апдейта из long polling (System.nanoTime)
      */
-    private void processUpdate(Update update) {
+    private void processUpdate(Update update, long receivedAt) {
+        long startedAt = System.nanoTime();
+        UpdateTrace trace = UpdateTrace.begin();
         try {
+            // Повторно доставленный апдейт отбрасывается до любой работы обработчиков
+            if (updateDeduplicator.isDuplicate(update)) {
+                return;
+            }
+
             Long userId = getUserId(update);
             
             if (userId == null) {
@@ -123,6 +173,10 @@ public class DatingBot extends TelegramLongPollingBot {
         } catch (Exception e) {
             log.error("Error processing update", e);
             sendErrorMessage(update);
+        } finally {
+            UpdateTrace.end();
+            updateLatencyRecorder.record(update.getUpdateId(), getUpdateType(update), trace,
+                startedAt - receivedAt, System.nanoTime() - startedAt);
         }
     }
 
@@ -134,12 +188,31 @@ public class DatingBot extends TelegramLongPollingBot {
         
         CommandHandler handler = commandHandlers.get(command);
         if (handler != null) {
-            handler.handle(this, update);
+            updateLatencyRecorder.timeCommand(command, () -> handler.handle(this, update));
         } else {
             sendUnknownCommandMessage(update);
         }
     }
 
+    /**
+     * Тип апдейта для метрик
+     */
+    private static String getUpdateType(Update update) {
+        if (update.hasCallbackQuery()) {
+            return "callback";
+        }
+        if (!update.hasMessage()) {
+            return "other";
+        }
+        if (update.getMessage().hasText()) {
+            return update.getMessage().getText().startsWith("/") ? "command" : "text";
+        }
+        if (update.getMessage().hasLocation()) {
+            return "location";
+        }
+        return update.getMessage().hasPhoto() ? "photo" : "other";
+    }
+
     /**
      * Извлечь ID пользователя из update
      */
@@ -170,6 +243,32 @@ public class DatingBot extends TelegramLongPollingBot {
         }
     }
 
+    /**
+     * Отправить ответ об отброшенном при перегрузке апдейте
+     */
+    private void sendBusyMessage(Update update) {
+        String text = "⏳ Бот сейчас перегружен. Пожалуйста, повторите через минуту.";
+        try {
+            if (update.hasCallbackQuery()) {
+                // Для кнопки достаточно всплывающего уведомления, заодно снимается индикатор загрузки
+                AnswerCallbackQuery answer = new AnswerCallbackQuery();
+                answer.setCallbackQueryId(update.getCallbackQuery().getId());
+                answer.setText(text);
+                execute(answer);
+                return;
+            }
+            Long chatId = getChatId(update);
+            if (chatId != null) {
+                SendMessage message = new SendMessage();
+                message.setChatId(chatId.toString());
+                message.setText(text);
+                execute(message);
+            }
+        } catch (TelegramApiException e) {
+            log.error("Error sending busy message", e);
+        }
+    }
+
     /**
      * Отправить сообщение об ошибке
      */
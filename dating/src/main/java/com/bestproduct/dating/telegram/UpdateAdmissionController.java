@@ -0,0 +1,302 @@
+package com.bestproduct.dating.telegram;
+
+import com.bestproduct.dating.config.AppConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Допуск апдейтов к обработке с приоритетными очередями.
+ * Апдейты раскладываются по классам (кнопки -> команды -> сообщения), у каждого своя ограниченная очередь;
+ * потоки-диспетчеры всегда берут апдейт из самой приоритетной непустой очереди.
+ * Поток long polling только кладет апдейт в очередь и никогда не выполняет обработку сам.
+ * Апдейт отбрасывается с вежливым ответом "бот занят", если его очередь переполнена
+ * или он прождал в очереди дольше допустимого для своего класса.
+ * Время ожидания в очереди по классам - telegram.update.queue_wait{lane}.
+ * Контроллер помнит незавершенные апдейты: при остановке очереди дорабатываются до дедлайна,
+ * а смещение считается по последнему апдейту, до которого все обработано.
+ * Диспетчеры при остановке не прерываются: занятый поток дорабатывает свой апдейт и завершается сам.
+ */
+@Component
+@Slf4j
+public class UpdateAdmissionController {
+
+    private static final long DRAIN_POLL_MS = 50;
+
+    public enum Lane {
+        CALLBACK, COMMAND, MESSAGE;
+
+        public static Lane of(Update update) {
+            if (update.hasCallbackQuery()) {
+                return CALLBACK;
+            }
+            if (update.hasMessage() && update.getMessage().hasText() && update.getMessage().getText().startsWith("/")) {
+                return COMMAND;
+            }
+            return MESSAGE;
+        }
+    }
+
+    private record Task(Update update, Runnable work, Runnable onShed, long enqueuedAt) {}
+
+    private final AppConfig appConfig;
+    private final MeterRegistry meterRegistry;
+    private final Executor telegramBotExecutor;
+    private final Executor notificationExecutor;
+
+    private final Map<Lane, ArrayDeque<Task>> queues = new EnumMap<>(Lane.class);
+    private final Map<Lane, Timer> waitTimers = new EnumMap<>(Lane.class);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final List<Thread> dispatchers = new ArrayList<>();
+    // Принятые, но еще не обработанные (или не отброшенные) update_id
+    private final ConcurrentSkipListSet<Integer> unfinished = new ConcurrentSkipListSet<>();
+    // Апдейты, которые диспетчеры обрабатывают прямо сейчас
+    private final Map<Integer, Update> inFlight = new ConcurrentHashMap<>();
+    private final AtomicInteger lastReceived = new AtomicInteger();
+    private volatile boolean running;
+
+    public UpdateAdmissionController(AppConfig appConfig,
+                                     MeterRegistry meterRegistry,
+                                     @Qualifier("telegramBotExecutor") Executor telegramBotExecutor,
+                                     @Qualifier("notificationExecutor") Executor notificationExecutor) {
+        this.appConfig = appConfig;
+        this.meterRegistry = meterRegistry;
+        this.telegramBotExecutor = telegramBotExecutor;
+        this.notificationExecutor = notificationExecutor;
+        for (Lane lane : Lane.values()) {
+            ArrayDeque<Task> queue = new ArrayDeque<>();
+            queues.put(lane, queue);
+            waitTimers.put(lane, Timer.builder("telegram.update.queue_wait")
+                .tag("lane", lane.name())
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry));
+            Gauge.builder("telegram.update.queue_depth", queue, this::sizeOf)
+                .tag("lane", lane.name())
+                .register(meterRegistry);
+        }
+    }
+
+    @PostConstruct
+    void startDispatchers() {
+        if (!appConfig.getAdmission().isEnabled()) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < appConfig.getAdmission().getDispatcherThreads(); i++) {
+            Thread thread = new Thread(this::dispatchLoop, "update-dispatcher-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            dispatchers.add(thread);
+        }
+        log.info("Update admission started: dispatchers={}", dispatchers.size());
+    }
+
+    @PreDestroy
+    void stopDispatchers() {
+        lock.lock();
+        try {
+            running = false;
+            // Свободные диспетчеры просыпаются и выходят, занятые - после своего апдейта
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Поставить апдейт в очередь его класса
+     *
+     * @param work   обработка апдейта
+     * @param onShed ответ пользователю, если апдейт отброшен
+     */
+    public void submit(Update update, Runnable work, Runnable onShed) {
+        Lane lane = Lane.of(update);
+        Integer updateId = update.getUpdateId();
+        if (updateId != null) {
+            unfinished.add(updateId);
+            lastReceived.accumulateAndGet(updateId, Math::max);
+        }
+        Runnable tracked = () -> {
+            try {
+                work.run();
+            } finally {
+                complete(updateId);
+            }
+        };
+        if (!running) {
+            telegramBotExecutor.execute(tracked);
+            return;
+        }
+        lock.lock();
+        try {
+            ArrayDeque<Task> queue = queues.get(lane);
+            if (queue.size() < limits(lane).getQueueCapacity()) {
+                queue.addLast(new Task(update, tracked, onShed, System.nanoTime()));
+                notEmpty.signal();
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        shed(lane, "queue_full", onShed);
+        complete(updateId);
+    }
+
+    /**
+     * Дождаться обработки принятых апдейтов, но не дольше timeout, и остановить диспетчеры.
+     * Новые апдейты к этому моменту поступать не должны (long polling остановлен)
+     *
+     * @return апдейты, так и не взятые из очередей, и апдейты, обработка которых не закончилась к дедлайну;
+     *         все они остаются незавершенными
+     */
+    public List<Update> drain(Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        try {
+            while (!unfinished.isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(DRAIN_POLL_MS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        List<Update> remaining = new ArrayList<>();
+        lock.lock();
+        try {
+            for (ArrayDeque<Task> queue : queues.values()) {
+                queue.forEach(task -> remaining.add(task.update()));
+                queue.clear();
+            }
+        } finally {
+            lock.unlock();
+        }
+        stopDispatchers();
+        // Апдейт мог завершиться между снимком и проверкой - такой уже не считается необработанным
+        inFlight.values().stream()
+            .filter(update -> unfinished.contains(update.getUpdateId()))
+            .forEach(remaining::add);
+        return remaining;
+    }
+
+    /**
+     * Последний update_id, до которого включительно все апдейты обработаны или отброшены
+     *
+     * @return 0, если апдейтов не было
+     */
+    public int committedOffset() {
+        Integer oldest = unfinished.isEmpty() ? null : unfinished.first();
+        return oldest != null ? oldest - 1 : lastReceived.get();
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            Lane lane;
+            Task task;
+            lock.lock();
+            try {
+                Lane next;
+                while ((next = nextLane()) == null && running) {
+                    notEmpty.await();
+                }
+                if (next == null) {
+                    return;
+                }
+                lane = next;
+                task = queues.get(lane).pollFirst();
+                // Под той же блокировкой, что и снимок очередей в drain: апдейт всегда виден в одном из них
+                if (task.update().getUpdateId() != null) {
+                    inFlight.put(task.update().getUpdateId(), task.update());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            Integer updateId = task.update().getUpdateId();
+            long waitedNanos = System.nanoTime() - task.enqueuedAt();
+            waitTimers.get(lane).record(Duration.ofNanos(waitedNanos));
+            long maxWaitMs = limits(lane).getMaxWaitMs();
+            if (maxWaitMs > 0 && waitedNanos > maxWaitMs * 1_000_000) {
+                shed(lane, "slo", task.onShed());
+                complete(updateId);
+                continue;
+            }
+            try {
+                task.work().run();
+            } catch (Exception e) {
+                log.error("Error processing update from lane {}", lane, e);
+            } finally {
+                complete(updateId);
+            }
+        }
+    }
+
+    /**
+     * Самая приоритетная непустая очередь (вызывается под блокировкой)
+     */
+    private Lane nextLane() {
+        for (Lane lane : Lane.values()) {
+            if (!queues.get(lane).isEmpty()) {
+                return lane;
+            }
+        }
+        return null;
+    }
+
+    private void shed(Lane lane, String reason, Runnable onShed) {
+        meterRegistry.counter("telegram.update.shed", "lane", lane.name(), "reason", reason).increment();
+        try {
+            // Ответ отправляется не из потока long polling и не из диспетчера
+            notificationExecutor.execute(onShed);
+        } catch (RejectedExecutionException e) {
+            log.warn("Dropped busy reply for lane {}", lane);
+        }
+    }
+
+    private void complete(Integer updateId) {
+        if (updateId != null) {
+            inFlight.remove(updateId);
+            unfinished.remove(updateId);
+        }
+    }
+
+    private AppConfig.Admission.Lane limits(Lane lane) {
+        AppConfig.Admission admission = appConfig.getAdmission();
+        return switch (lane) {
+            case CALLBACK -> admission.getCallbacks();
+            case COMMAND -> admission.getCommands();
+            case MESSAGE -> admission.getMessages();
+        };
+    }
+
+    private double sizeOf(ArrayDeque<Task> queue) {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.bestproduct.dating.telegram;
+
+import com.bestproduct.dating.config.AppConfig;
+import com.bestproduct.dating.service.SlowQueryLog;
+import com.bestproduct.dating.util.UpdateTrace;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Метрики задержки обработки апдейтов.
+ * telegram.update.duration{type,handler} - обработка апдейта целиком;
+ * telegram.update.stage{type,handler,stage} - из нее время БД, Redis, Telegram API, остальное (other)
+ * и ожидание в очереди перед обработкой (queue);
+ * telegram.command.duration{command} - обработчики команд;
+ * hibernate.statements.per_update{type,handler} - число SQL-запросов за апдейт.
+ * Апдейт дольше порога пишется в лог с разбивкой по стадиям и самым долгим вызовом,
+ * повтор одного запроса за апдейт (N+1) - в лог и hibernate.n_plus_one{handler}.
+ * Стадии считаются по UpdateTrace потока обработки: фоновая дозагрузка свайпа и уведомления
+ * в них не входят, так как выполняются уже после ответа на апдейт.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UpdateLatencyRecorder {
+
+    private final MeterRegistry meterRegistry;
+    private final AppConfig appConfig;
+
+    /**
+     * Выполнить обработчик команды с замером времени
+     */
+    public void timeCommand(String command, Runnable handler) {
+        UpdateTrace.label(command);
+        Timer.builder("telegram.command.duration")
+            .tag("command", command)
+            .register(meterRegistry)
+            .record(handler);
+    }
+
+    /**
+     * Записать метрики завершенного апдейта
+     *
+     * @param queueNanos      ожидание между получением апдейта и началом обработки
+     * @param processingNanos время обработки
+     */
+    public void record(Integer updateId, String type, UpdateTrace trace, long queueNanos, long processingNanos) {
+        String handler = trace.label() != null ? trace.label() : type;
+        Timer.builder("telegram.update.duration")
+            .tags("type", type, "handler", handler)
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry)
+            .record(processingNanos, TimeUnit.NANOSECONDS);
+
+        long accounted = 0;
+        for (UpdateTrace.Stage stage : UpdateTrace.Stage.values()) {
+            long nanos = trace.stageNanos(stage);
+            accounted += nanos;
+            stageTimer(type, handler, stage.name().toLowerCase()).record(nanos, TimeUnit.NANOSECONDS);
+        }
+        long otherNanos = Math.max(0, processingNanos - accounted);
+        stageTimer(type, handler, "other").record(otherNanos, TimeUnit.NANOSECONDS);
+        stageTimer(type, handler, "queue").record(queueNanos, TimeUnit.NANOSECONDS);
+
+        DistributionSummary.builder("hibernate.statements.per_update")
+            .tags("type", type, "handler", handler)
+            .register(meterRegistry)
+            .record(trace.statementCount());
+        if (trace.repeatedCount() >= appConfig.getObservability().getRepeatedStatementThreshold()) {
+            meterRegistry.counter("hibernate.n_plus_one", "handler", handler).increment();
+            log.warn("Possible N+1 in update {} ({}): statement executed {} times: {}",
+                updateId, handler, trace.repeatedCount(), SlowQueryLog.normalize(trace.repeatedStatement()));
+        }
+
+        long totalMs = toMillis(queueNanos + processingNanos);
+        if (totalMs >= appConfig.getObservability().getSlowUpdateMs()) {
+            log.warn("Slow update {} ({}) took {} ms: queue={} ms, db={} ms/{}, redis={} ms/{}, telegram={} ms/{}, " +
+                    "other={} ms, statements={}; slowest span: {} {} ms",
+                updateId, handler, totalMs, toMillis(queueNanos),
+                stageMillis(trace, UpdateTrace.Stage.DB), trace.stageCalls(UpdateTrace.Stage.DB),
+                stageMillis(trace, UpdateTrace.Stage.REDIS), trace.stageCalls(UpdateTrace.Stage.REDIS),
+                stageMillis(trace, UpdateTrace.Stage.TELEGRAM), trace.stageCalls(UpdateTrace.Stage.TELEGRAM),
+                toMillis(otherNanos), trace.statementCount(), trace.slowestSpan(), toMillis(trace.slowestNanos()));
+        }
+    }
+
+    private Timer stageTimer(String type, String handler, String stage) {
+        return Timer.builder("telegram.update.stage")
+            .tags("type", type, "handler", handler, "stage", stage)
+            .register(meterRegistry);
+    }
+
+    private static long stageMillis(UpdateTrace trace, UpdateTrace.Stage stage) {
+        return toMillis(trace.stageNanos(stage));
+    }
+
+    private static long toMillis(long nanos) {
+        return Duration.ofNanos(nanos).toMillis();
+    }
+}
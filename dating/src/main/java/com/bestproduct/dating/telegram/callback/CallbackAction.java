@@ -0,0 +1,81 @@
+package com.bestproduct.dating.telegram.callback;
+
+/**
+ * Действия inline-кнопок.
+ * code - стабильный байт в компактном payload (не меняется при переупорядочивании констант),
+ * arity - количество числовых ID в payload, legacyKey - строковый формат кнопок,
+ * отправленных до перехода на компактный payload (null у действий, появившихся позже).
+ */
+public enum CallbackAction {
+
+    SWIPE_LIKE(1, 1, "swipe_like_"),
+    SWIPE_DISLIKE(2, 1, "swipe_dislike_"),
+    SWIPE_SUPERLIKE(3, 1, "swipe_superlike_"),
+    SWIPE_STOP(4, 0, "swipe_stop"),
+    SWIPE_PHOTO(5, 2, null),
+
+    EVENTS_NEARBY(10, 0, "events_nearby"),
+    EVENTS_CREATE(11, 0, "events_create"),
+    EVENTS_MY(12, 0, "events_my"),
+
+    EVENT_SUBSCRIBE(20, 1, "event_subscribe_"),
+    EVENT_OWN(21, 1, "event_own_"),
+    EVENT_CLOSE(22, 1, "event_close_"),
+    EVENT_APPROVE(23, 1, "event_approve_"),
+    EVENT_REJECT(24, 1, "event_reject_"),
+    EVENT_KICK(25, 2, "event_kick_"),
+    EVENT_MANAGE(26, 1, "event_manage_"),
+
+    MATCH_OPEN(30, 1, "match_open_"),
+    SEARCH_USER(31, 1, "search_user_"),
+
+    REGISTRATION_START(40, 0, "registration_start"),
+    GENDER_MALE(41, 0, "gender_MALE"),
+    GENDER_FEMALE(42, 0, "gender_FEMALE"),
+    GENDER_OTHER(43, 0, "gender_OTHER"),
+
+    SETTINGS_ADD_PHOTO(50, 0, "settings_add_photo"),
+    SETTINGS_REPLACE_PHOTO(51, 0, "settings_replace_photo"),
+    SETTINGS_UPDATE_LOCATION(52, 0, "settings_update_location"),
+    SETTINGS_UPDATE_BIO(53, 0, "settings_update_bio");
+
+    private static final CallbackAction[] BY_CODE = new CallbackAction[128];
+
+    static {
+        for (CallbackAction action : values()) {
+            if (BY_CODE[action.code] != null) {
+                throw new IllegalStateException("Duplicate callback action code: " + action.code);
+            }
+            BY_CODE[action.code] = action;
+        }
+    }
+
+    private final byte code;
+    private final int arity;
+    private final String legacyKey;
+
+    CallbackAction(int code, int arity, String legacyKey) {
+        this.code = (byte) code;
+        this.arity = arity;
+        this.legacyKey = legacyKey;
+    }
+
+    public byte code() {
+        return code;
+    }
+
+    public int arity() {
+        return arity;
+    }
+
+    public String legacyKey() {
+        return legacyKey;
+    }
+
+    /**
+     * Действие по байту из payload или null, если код неизвестен
+     */
+    public static CallbackAction fromCode(int code) {
+        return code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+    }
+}
@@ -0,0 +1,187 @@
+package com.bestproduct.dating.telegram.callback;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Кодек payload'а inline-кнопок.
+ * Компактный формат: '!' + base64url без паддинга от [код действия][ID в виде varint...].
+ * Кнопка с двумя ID занимает не больше 29 символов при лимите Telegram в 64 байта.
+ * Кодирование и разбор идут прямо по символам строки, без промежуточных массивов Base64 и regex.
+ * Строки старого формата ("swipe_like_123") тоже распознаются - такие кнопки остаются в уже отправленных сообщениях.
+ */
+public final class CallbackCodec {
+
+    public static final int MAX_CALLBACK_DATA_BYTES = 64;
+
+    private static final char COMPACT_MARKER = '!';
+    private static final char[] BASE64_ALPHABET =
+        "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".toCharArray();
+    private static final int[] BASE64_VALUES = new int[128];
+    private static final Map<String, CallbackAction> LEGACY_EXACT = new HashMap<>();
+    private static final Map<String, CallbackAction> LEGACY_PREFIXES = new HashMap<>();
+
+    static {
+        Arrays.fill(BASE64_VALUES, -1);
+        for (int i = 0; i < BASE64_ALPHABET.length; i++) {
+            BASE64_VALUES[BASE64_ALPHABET[i]] = i;
+        }
+        for (CallbackAction action : CallbackAction.values()) {
+            if (action.legacyKey() != null) {
+                (action.arity() == 0 ? LEGACY_EXACT : LEGACY_PREFIXES).put(action.legacyKey(), action);
+            }
+        }
+    }
+
+    private CallbackCodec() {
+    }
+
+    /**
+     * Упаковать действие и его ID
+     */
+    public static String encode(CallbackAction action, long... ids) {
+        if (ids.length != action.arity()) {
+            throw new IllegalArgumentException(
+                "Callback action " + action + " expects " + action.arity() + " ids, got " + ids.length);
+        }
+        byte[] buffer = new byte[1 + 10 * ids.length];
+        buffer[0] = action.code();
+        int length = 1;
+        for (long id : ids) {
+            if (id < 0) {
+                throw new IllegalArgumentException("Callback id must not be negative: " + id);
+            }
+            long value = id;
+            while ((value & ~0x7FL) != 0) {
+                buffer[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[length++] = (byte) value;
+        }
+        return toBase64(buffer, length);
+    }
+
+    /**
+     * base64url без паддинга сразу в символы результата, без промежуточных массивов кодировщика
+     */
+    private static String toBase64(byte[] bytes, int length) {
+        char[] chars = new char[1 + (length * 4 + 2) / 3];
+        if (chars.length > MAX_CALLBACK_DATA_BYTES) {
+            throw new IllegalStateException("Callback payload exceeds Telegram limit: " + chars.length + " bytes");
+        }
+        chars[0] = COMPACT_MARKER;
+        int c = 1;
+        for (int i = 0; i < length; i += 3) {
+            int b0 = bytes[i] & 0xFF;
+            int b1 = i + 1 < length ? bytes[i + 1] & 0xFF : 0;
+            int b2 = i + 2 < length ? bytes[i + 2] & 0xFF : 0;
+            chars[c++] = BASE64_ALPHABET[b0 >>> 2];
+            chars[c++] = BASE64_ALPHABET[((b0 & 0x03) << 4) | (b1 >>> 4)];
+            if (i + 1 < length) {
+                chars[c++] = BASE64_ALPHABET[((b1 & 0x0F) << 2) | (b2 >>> 6)];
+            }
+            if (i + 2 < length) {
+                chars[c++] = BASE64_ALPHABET[b2 & 0x3F];
+            }
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Разобрать payload кнопки
+     *
+     * @return null, если формат не распознан
+     */
+    public static CallbackData decode(String data) {
+        if (data == null || data.isEmpty()) {
+            return null;
+        }
+        return data.charAt(0) == COMPACT_MARKER ? decodeCompact(data) : decodeLegacy(data);
+    }
+
+    private static CallbackData decodeCompact(String data) {
+        CallbackAction action = null;
+        long[] ids = null;
+        int idIndex = 0;
+        long varint = 0;
+        int shift = 0;
+        int bitBuffer = 0;
+        int bits = 0;
+
+        for (int i = 1; i < data.length(); i++) {
+            char c = data.charAt(i);
+            int sextet = c < BASE64_VALUES.length ? BASE64_VALUES[c] : -1;
+            if (sextet < 0) {
+                return null;
+            }
+            bitBuffer = (bitBuffer << 6) | sextet;
+            bits += 6;
+            if (bits < 8) {
+                continue;
+            }
+            bits -= 8;
+            int octet = (bitBuffer >>> bits) & 0xFF;
+            bitBuffer &= (1 << bits) - 1;
+
+            if (action == null) {
+                action = CallbackAction.fromCode(octet);
+                if (action == null) {
+                    return null;
+                }
+                ids = new long[action.arity()];
+                continue;
+            }
+            if (idIndex >= ids.length || shift > 63) {
+                return null;
+            }
+            varint |= (long) (octet & 0x7F) << shift;
+            if ((octet & 0x80) != 0) {
+                shift += 7;
+            } else {
+                ids[idIndex++] = varint;
+                varint = 0;
+                shift = 0;
+            }
+        }
+        if (action == null || idIndex != ids.length || shift != 0) {
+            return null;
+        }
+        return new CallbackData(action, ids);
+    }
+
+    private static CallbackData decodeLegacy(String data) {
+        CallbackAction exact = LEGACY_EXACT.get(data);
+        if (exact != null) {
+            return new CallbackData(exact, new long[0]);
+        }
+
+        int firstDigit = 0;
+        while (firstDigit < data.length() && !Character.isDigit(data.charAt(firstDigit))) {
+            firstDigit++;
+        }
+        CallbackAction action = LEGACY_PREFIXES.get(data.substring(0, firstDigit));
+        if (action == null || firstDigit == data.length()) {
+            return null;
+        }
+
+        long[] ids = new long[action.arity()];
+        int idIndex = 0;
+        long value = 0;
+        for (int i = firstDigit; i <= data.length(); i++) {
+            char c = i < data.length() ? data.charAt(i) : '_';
+            if (c == '_') {
+                if (idIndex >= ids.length) {
+                    return null;
+                }
+                ids[idIndex++] = value;
+                value = 0;
+            } else if (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+            } else {
+                return null;
+            }
+        }
+        return idIndex == ids.length ? new CallbackData(action, ids) : null;
+    }
+}
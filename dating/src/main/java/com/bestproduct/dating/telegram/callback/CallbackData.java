@@ -0,0 +1,11 @@
+package com.bestproduct.dating.telegram.callback;
+
+/**
+ * Разобранный payload inline-кнопки
+ */
+public record CallbackData(CallbackAction action, long[] ids) {
+
+    public long id(int index) {
+        return ids[index];
+    }
+}
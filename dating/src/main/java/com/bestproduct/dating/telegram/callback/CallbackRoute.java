@@ -0,0 +1,13 @@
+package com.bestproduct.dating.telegram.callback;
+
+import com.bestproduct.dating.telegram.DatingBot;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+/**
+ * Обработчик одного действия inline-кнопки
+ */
+@FunctionalInterface
+public interface CallbackRoute {
+
+    void handle(DatingBot bot, Update update, CallbackData data);
+}
@@ -0,0 +1,67 @@
+package com.bestproduct.dating.telegram.callback;
+
+import com.bestproduct.dating.telegram.DatingBot;
+import com.bestproduct.dating.util.UpdateTrace;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+/**
+ * Таблица маршрутов inline-кнопок: обработчик выбирается по ordinal действия, без цепочки startsWith.
+ * Для каждого маршрута пишется своя метрика telegram.callback.duration{route}.
+ */
+@Component
+@Slf4j
+public class CallbackRouter {
+
+    private final CallbackRoute[] routes = new CallbackRoute[CallbackAction.values().length];
+    private final Timer[] timers = new Timer[CallbackAction.values().length];
+    private final Counter unknownCounter;
+    private final MeterRegistry meterRegistry;
+
+    public CallbackRouter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.unknownCounter = meterRegistry.counter("telegram.callback.unknown");
+    }
+
+    /**
+     * Зарегистрировать обработчик действия
+     */
+    public synchronized void register(CallbackAction action, CallbackRoute route) {
+        if (routes[action.ordinal()] != null) {
+            throw new IllegalStateException("Callback route already registered: " + action);
+        }
+        timers[action.ordinal()] = Timer.builder("telegram.callback.duration")
+            .tag("route", action.name().toLowerCase())
+            .register(meterRegistry);
+        routes[action.ordinal()] = route;
+    }
+
+    /**
+     * Разобрать payload callback query и вызвать обработчик
+     *
+     * @return false, если payload не распознан или для действия нет обработчика
+     */
+    public boolean dispatch(DatingBot bot, Update update) {
+        String payload = update.getCallbackQuery().getData();
+        CallbackData data = CallbackCodec.decode(payload);
+        if (data == null) {
+            unknownCounter.increment();
+            log.warn("Unknown callback payload: {}", payload);
+            return false;
+        }
+
+        int index = data.action().ordinal();
+        CallbackRoute route = routes[index];
+        if (route == null) {
+            log.debug("No route for callback action {}", data.action());
+            return false;
+        }
+        UpdateTrace.label(data.action().name().toLowerCase());
+        timers[index].record(() -> route.handle(bot, update, data));
+        return true;
+    }
+}
@@ -3,21 +3,19 @@ package com.bestproduct.dating.telegram.handler;
 import com.bestproduct.dating.domain.entity.Event;
 import com.bestproduct.dating.domain.entity.Profile;
 import com.bestproduct.dating.domain.entity.User;
+import com.bestproduct.dating.service.ConversationStateStore;
 import com.bestproduct.dating.service.PhotoService;
 import com.bestproduct.dating.service.UserService;
 import com.bestproduct.dating.telegram.DatingBot;
 import com.bestproduct.dating.telegram.keyboard.KeyboardFactory;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
 import org.telegram.telegrambots.meta.api.objects.PhotoSize;
 import org.telegram.telegrambots.meta.api.objects.Update;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 
-import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -28,7 +26,9 @@ import java.util.List;
 import java.util.Optional;
 
 /**
- * Обработчик обычных текстовых сообщений (с асинхронной обработкой)
+ * Обработчик обычных текстовых сообщений.
+ * Вызывается из диспетчера апдейтов и работает в его потоке, чтобы апдейт считался обработанным
+ * только после реального завершения обработчика
  */
 @Component
 @RequiredArgsConstructor
@@ -37,7 +37,8 @@ public class MessageHandler {
 
     private final UserService userService;
     private final PhotoService photoService;
-    private final RedisTemplate<String, Object> redisTemplate;
+    private final PhotoAlbumCollector photoAlbumCollector;
+    private final ConversationStateStore conversationStateStore;
     private final com.bestproduct.dating.service.ProfileService profileService;
     private final com.bestproduct.dating.service.EventService eventService;
     private final com.bestproduct.dating.telegram.util.LocationValidator locationValidator;
@@ -105,9 +106,8 @@ public class MessageHandler {
     }
 
     /**
-     * Обработка геолокации (асинхронно)
+     * Обработка геолокации
      */
-    @Async("telegramBotExecutor")
     public void handleLocation(DatingBot bot, Update update) {
         Long telegramId = update.getMessage().getFrom().getId();
         Long chatId = update.getMessage().getChatId();
@@ -180,9 +180,8 @@ public class MessageHandler {
     }
 
     /**
-     * Обработка фото (асинхронно)
+     * Обработка фото
      */
-    @Async("telegramBotExecutor")
     public void handlePhoto(DatingBot bot, Update update) {
         Long telegramId = update.getMessage().getFrom().getId();
         Long chatId = update.getMessage().getChatId();
@@ -207,7 +206,7 @@ public class MessageHandler {
                 log.info("Photo replaced: userId={}, fileId={}", user.getId(), fileId);
             } else {
                 // Добавление нового фото
-                handlePhotoAddition(bot, chatId, user, photos);
+                handlePhotoAddition(bot, chatId, user, photos, update.getMessage().getMediaGroupId());
             }
 
         } catch (IllegalArgumentException e) {
@@ -217,11 +216,10 @@ public class MessageHandler {
     }
 
     /**
-     * Обработка добавления фотографий с группировкой
+     * Обработка добавления фотографий с группировкой альбомов
      */
-    private void handlePhotoAddition(DatingBot bot, Long chatId, User user, List<PhotoSize> photos) {
+    private void handlePhotoAddition(DatingBot bot, Long chatId, User user, List<PhotoSize> photos, String mediaGroupId) {
         Long userId = user.getId();
-        String groupKey = "photo_group:" + userId;
         
         // Получить самую большую фотографию
         String fileId = photos.stream()
@@ -234,19 +232,11 @@ public class MessageHandler {
             return;
         }
 
-        // Проверить, есть ли активная группа фотографий
-        String existingGroup = (String) redisTemplate.opsForValue().get(groupKey);
-        
-        if (existingGroup == null) {
+        if (mediaGroupId == null) {
             // Обработать одну фотографию сразу
             processSinglePhoto(bot, chatId, userId, fileId);
-        } else {
-            // Добавить к существующей группе
-            String groupData = existingGroup + "," + fileId;
-            redisTemplate.opsForValue().set(groupKey, groupData, Duration.ofSeconds(1));
-            
-            // Отправить уведомление через 1 секунду
-            scheduleGroupNotification(bot, chatId, userId, groupKey);
+        } else if (!photoAlbumCollector.addPhoto(bot, chatId, userId, mediaGroupId, fileId)) {
+            sendMessage(bot, chatId, "❌ Не удалось добавить фотографии. Попробуйте позже.");
         }
     }
 
@@ -285,80 +275,6 @@ public class MessageHandler {
         }
     }
 
-    /**
-     * Запланировать уведомление о группе фотографий
-     */
-    private void scheduleGroupNotification(DatingBot bot, Long chatId, Long userId, String groupKey) {
-        // Используем простую задержку через новый поток
-        new Thread(() -> {
-            try {
-                Thread.sleep(1000); // 1 секунда задержки для группировки
-                
-                // Проверить, что группа все еще активна
-                String groupData = (String) redisTemplate.opsForValue().get(groupKey);
-                if (groupData != null) {
-                    // Очистить группу
-                    redisTemplate.delete(groupKey);
-                    
-                    // Получить текущие фотографии профиля
-                    List<String> currentPhotos = photoService.getProfilePhotos(userId);
-                    int currentCount = currentPhotos.size();
-                    
-                    // Получить максимальный лимит фотографий
-                    int maxPhotos = 3; // Максимум 3 фотографии
-                    
-                    // Подсчитать количество новых фото в группе
-                    String[] newPhotoIds = groupData.split(",");
-                    int newPhotoCount = newPhotoIds.length;
-                    
-                    // Вычислить, сколько фотографий можно добавить
-                    int availableSlots = maxPhotos - currentCount;
-                    int photosToAdd = Math.min(newPhotoCount, availableSlots);
-                    
-                    if (photosToAdd <= 0) {
-                        sendMessage(bot, chatId, "❌ Максимум 3 фотографии в профиле. Замените старые фото, чтобы добавить новые.");
-                        return;
-                    }
-                    
-                    // Добавить только допустимое количество фотографий
-                    int addedCount = 0;
-                    for (int i = 0; i < photosToAdd; i++) {
-                        try {
-                            // Создаем фиктивный PhotoSize объект с file_id
-                            List<PhotoSize> fakePhotoList = new ArrayList<>();
-                            PhotoSize fakePhoto = new PhotoSize();
-                            fakePhoto.setFileId(newPhotoIds[i]);
-                            fakePhoto.setFileSize(1000); // Фиктивный размер
-                            fakePhotoList.add(fakePhoto);
-                            
-                            photoService.savePhotoToProfile(userId, fakePhotoList);
-                            addedCount++;
-                        } catch (Exception e) {
-                            log.error("Error saving photo {}: {}", newPhotoIds[i], e.getMessage());
-                        }
-                    }
-                    
-                    // Отправить уведомление
-                    if (addedCount == 0) {
-                        sendMessage(bot, chatId, "❌ Не удалось добавить фотографии. Максимум 3 фотографии в профиле.");
-                    } else if (addedCount == 1) {
-                        sendMessage(bot, chatId, "✅ Фотография добавлена в профиль!");
-                    } else {
-                        sendMessage(bot, chatId, "✅ Добавлено " + addedCount + " фотографий в профиль!");
-                        
-                        // Если было отправлено больше фотографий, чем можно добавить
-                        if (newPhotoCount > availableSlots) {
-                            sendMessage(bot, chatId, "⚠️ Максимум 3 фотографии в профиле. Добавлено только " + addedCount + " из " + newPhotoCount + ".");
-                        }
-                    }
-                }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                log.error("Photo group notification interrupted", e);
-            }
-        }).start();
-    }
-
     private void handleSearch(DatingBot bot, Update update) {
         Long telegramId = update.getMessage().getFrom().getId();
         Long chatId = update.getMessage().getChatId();
@@ -474,8 +390,7 @@ public class MessageHandler {
             User newUser = userService.createUser(telegramId, firstName, lastName, username, birthDate, userGender);
             
             // Очистить состояние регистрации
-            clearRegistrationStep(telegramId);
-            clearRegistrationData(telegramId, "gender");
+            conversationStateStore.clear(telegramId);
 
             // Поздравить с успешной регистрацией
             SendMessage message = new SendMessage();
@@ -515,50 +430,35 @@ public class MessageHandler {
      * Получить шаг регистрации
      */
     private String getRegistrationStep(Long telegramId) {
-        String key = "registration:step:" + telegramId;
-        Object value = redisTemplate.opsForValue().get(key);
-        return value != null ? value.toString() : null;
+        return conversationStateStore.getStep(telegramId);
     }
 
     /**
      * Установить шаг регистрации
      */
     public void setRegistrationStep(Long telegramId, String step) {
-        String key = "registration:step:" + telegramId;
-        redisTemplate.opsForValue().set(key, step, Duration.ofMinutes(30));
+        conversationStateStore.setStep(telegramId, step);
     }
 
     /**
      * Очистить шаг регистрации
      */
     private void clearRegistrationStep(Long telegramId) {
-        String key = "registration:step:" + telegramId;
-        redisTemplate.delete(key);
+        conversationStateStore.clearStep(telegramId);
     }
 
     /**
      * Сохранить данные регистрации
      */
     public void setRegistrationData(Long telegramId, String field, String value) {
-        String key = "registration:data:" + telegramId + ":" + field;
-        redisTemplate.opsForValue().set(key, value, Duration.ofMinutes(30));
+        conversationStateStore.setData(telegramId, field, value);
     }
 
     /**
      * Получить данные регистрации
      */
     private String getRegistrationData(Long telegramId, String field) {
-        String key = "registration:data:" + telegramId + ":" + field;
-        Object value = redisTemplate.opsForValue().get(key);
-        return value != null ? value.toString() : null;
-    }
-
-    /**
-     * Очистить данные регистрации
-     */
-    private void clearRegistrationData(Long telegramId, String field) {
-        String key = "registration:data:" + telegramId + ":" + field;
-        redisTemplate.delete(key);
+        return conversationStateStore.get(telegramId).get(field);
     }
 
     /**
@@ -715,10 +615,11 @@ public class MessageHandler {
                 return;
             }
             
-            // Получить все данные события
-            String title = getRegistrationData(telegramId, "event_title");
-            String location = getRegistrationData(telegramId, "event_location");
-            String dateStr = getRegistrationData(telegramId, "event_date");
+            // Получить все данные события одним чтением состояния
+            ConversationStateStore.State state = conversationStateStore.get(telegramId);
+            String title = state.get("event_title");
+            String location = state.get("event_location");
+            String dateStr = state.get("event_date");
             
             if (title == null || location == null || dateStr == null) {
                 sendMessage(bot, chatId, "❌ Данные события потеряны. Начните создание заново.");
@@ -761,10 +662,7 @@ public class MessageHandler {
             );
             
             // Очистить состояние
-            clearRegistrationStep(telegramId);
-            clearRegistrationData(telegramId, "event_title");
-            clearRegistrationData(telegramId, "event_location");
-            clearRegistrationData(telegramId, "event_date");
+            conversationStateStore.clear(telegramId);
             
             sendMessage(bot, chatId, 
                 "🎉 Событие создано!\n\n" +
@@ -0,0 +1,113 @@
+package com.bestproduct.dating.telegram.handler;
+
+import com.bestproduct.dating.config.AppConfig;
+import com.bestproduct.dating.service.PhotoService;
+import com.bestproduct.dating.telegram.DatingBot;
+import com.bestproduct.dating.util.KeyedDebouncer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+/**
+ * Сборка фотографий из альбома (media_group_id) в одну пачку.
+ * Telegram присылает каждое фото альбома отдельным апдейтом, здесь они собираются
+ * и сохраняются в профиль одним обновлением с одним ответом пользователю.
+ */
+@Component
+@Slf4j
+public class PhotoAlbumCollector {
+
+    private static final Duration QUIET_PERIOD = Duration.ofSeconds(1);
+    private static final int MAX_PENDING_ALBUMS = 1000;
+    // Альбом в Telegram содержит не больше 10 элементов
+    private static final int MAX_ALBUM_SIZE = 10;
+
+    private final PhotoService photoService;
+    private final AppConfig appConfig;
+    // Собственный таймер: бин типа ScheduledExecutorService отключил бы планировщик @Scheduled по умолчанию
+    private final ScheduledThreadPoolExecutor debounceTimer;
+    private final KeyedDebouncer<String, AlbumPhoto> debouncer;
+
+    public PhotoAlbumCollector(PhotoService photoService,
+                               AppConfig appConfig,
+                               @Qualifier("telegramBotExecutor") Executor telegramBotExecutor) {
+        this.photoService = photoService;
+        this.appConfig = appConfig;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("debounce-");
+        threadFactory.setDaemon(true);
+        this.debounceTimer = new ScheduledThreadPoolExecutor(1, threadFactory);
+        this.debounceTimer.setRemoveOnCancelPolicy(true);
+        this.debouncer = new KeyedDebouncer<>(debounceTimer, telegramBotExecutor, QUIET_PERIOD,
+            MAX_PENDING_ALBUMS, MAX_ALBUM_SIZE, this::flushAlbum);
+    }
+
+    /**
+     * Добавить фото альбома. Возвращает false, если очередь альбомов переполнена
+     */
+    public boolean addPhoto(DatingBot bot, Long chatId, Long userId, String mediaGroupId, String fileId) {
+        return debouncer.submit(mediaGroupId, new AlbumPhoto(bot, chatId, userId, fileId));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        debounceTimer.shutdownNow();
+    }
+
+    /**
+     * Сохранить все собираемые альбомы, не дожидаясь паузы (при остановке бота)
+     */
+    public int flushPending() {
+        return debouncer.flushAll();
+    }
+
+    private void flushAlbum(String mediaGroupId, List<AlbumPhoto> photos) {
+        AlbumPhoto first = photos.get(0);
+        List<String> fileIds = photos.stream().map(AlbumPhoto::fileId).toList();
+        int maxPhotos = appConfig.getImages().getMaxPerProfile();
+
+        List<String> added;
+        try {
+            added = photoService.addPhotosToProfile(first.userId(), fileIds);
+        } catch (Exception e) {
+            log.error("Error saving photo album {} for user {}", mediaGroupId, first.userId(), e);
+            sendMessage(first.bot(), first.chatId(), "❌ Не удалось добавить фотографии. Попробуйте позже.");
+            return;
+        }
+
+        if (added.isEmpty()) {
+            sendMessage(first.bot(), first.chatId(), "❌ Максимум " + maxPhotos
+                + " фотографии в профиле. Замените старые фото, чтобы добавить новые.");
+        } else if (added.size() == 1 && fileIds.size() == 1) {
+            sendMessage(first.bot(), first.chatId(), "✅ Фотография добавлена в профиль!");
+        } else if (added.size() < fileIds.size()) {
+            sendMessage(first.bot(), first.chatId(), "⚠️ Максимум " + maxPhotos + " фотографии в профиле. Добавлено только "
+                + added.size() + " из " + fileIds.size() + ".");
+        } else {
+            sendMessage(first.bot(), first.chatId(), "✅ Добавлено " + added.size() + " фотографий в профиль!");
+        }
+    }
+
+    private void sendMessage(DatingBot bot, Long chatId, String text) {
+        SendMessage message = new SendMessage();
+        message.setChatId(chatId.toString());
+        message.setText(text);
+
+        try {
+            bot.execute(message);
+        } catch (TelegramApiException e) {
+            log.error("Error sending message", e);
+        }
+    }
+
+    private record AlbumPhoto(DatingBot bot, Long chatId, Long userId, String fileId) {
+    }
+}
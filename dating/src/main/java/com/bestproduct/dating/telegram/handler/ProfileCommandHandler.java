@@ -88,7 +88,7 @@ public class ProfileCommandHandler implements CommandHandler {
                         sendPhoto.setChatId(chatId.toString());
                         sendPhoto.setPhoto(new org.telegram.telegrambots.meta.api.objects.InputFile(photoUrls.get(0)));
                         sendPhoto.setCaption(profileText);
-                        bot.execute(sendPhoto);
+                        bot.sendPhoto(sendPhoto);
                     } else if (photoUrls.size() >= 2) {
                         // Если несколько фото - отправить как медиа-группу
                         List<InputMedia> mediaGroup = new ArrayList<>();
@@ -0,0 +1,350 @@
+package com.bestproduct.dating.telegram.handler;
+
+import com.bestproduct.dating.config.AppConfig;
+import com.bestproduct.dating.service.ProfileCardCache;
+import com.bestproduct.dating.service.ProfileChangedEvent;
+import com.bestproduct.dating.service.ProfileService;
+import com.bestproduct.dating.telegram.DatingBot;
+import com.bestproduct.dating.telegram.util.ProfileCardSender;
+import com.bestproduct.dating.util.OldestEntries;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Сессия свайпа в чате: одно сообщение-карточка, которое после каждого свайпа
+ * редактируется следующим кандидатом вместо отправки новых сообщений.
+ * Сразу после показа карточки в фоне готовятся следующие 1-3 кандидата (ограниченный буфер сессии),
+ * поэтому свайп обходится одним запросом editMessageMedia без обращения к БД.
+ * Если буфер пуст, кандидаты загружаются синхронно в потоке апдейта: апдейт завершается
+ * только после показа карточки, и время БД попадает в его трассу. Асинхронна только дозагрузка впрок.
+ * Подготовленные карточки отбрасываются по истечении срока и при изменении профиля
+ * смотрящего (местоположение, видимость) или самого кандидата.
+ * Сессии живут в памяти - корректно, пока апдейты обрабатывает один экземпляр бота (long polling);
+ * потерянная сессия просто начинается заново новым сообщением.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SwipeSessionManager {
+
+    private static final Duration SESSION_TTL = Duration.ofMinutes(30);
+    private static final int MAX_SESSIONS = 50_000;
+    private static final int EVICTION_BATCH = MAX_SESSIONS / 10;
+    private static final int MAX_PREFETCH_SIZE = 3;
+    // Недавно показанные карточки исключаются из дозагрузки, даже если свайп еще не записан
+    private static final int RECENT_SIZE = 16;
+    // Загрузка повторяется, если буфер сбросили, пока она шла
+    private static final int MAX_LOAD_ATTEMPTS = 2;
+    private static final String NO_MORE_PROFILES = "🎉 Вы посмотрели всех доступных пользователей!\n\n" +
+        "Попробуйте позже - возможно появятся новые люди или истечет время блокировки уже просмотренных.";
+
+    private final ProfileService profileService;
+    private final ProfileCardSender profileCardSender;
+    private final AppConfig appConfig;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Long, Session> sessions = new ConcurrentHashMap<>();
+
+    private record Prepared(ProfileCardCache.RenderedCard card, long expiresAt) {
+    }
+
+    /**
+     * Состояние сессии; все поля меняются под монитором сессии
+     */
+    private static final class Session {
+        private final Long userId;
+        private final ArrayDeque<Prepared> ready = new ArrayDeque<>();
+        private final ArrayDeque<Long> recent = new ArrayDeque<>();
+        // ID сообщения с карточкой или null, если карточку нельзя редактировать (альбом)
+        private Integer messageId;
+        private CompletableFuture<Void> refill;
+        // Увеличивается при сбросе буфера, чтобы запоздавшая дозагрузка не вернула устаревшие карточки
+        private long generation;
+        private long expiresAt;
+
+        private Session(Long userId) {
+            this.userId = userId;
+            touch();
+        }
+
+        private void touch() {
+            expiresAt = System.currentTimeMillis() + SESSION_TTL.toMillis();
+        }
+
+        private void remember(Long profileId) {
+            recent.addLast(profileId);
+            if (recent.size() > RECENT_SIZE) {
+                recent.removeFirst();
+            }
+        }
+
+        private Set<Long> excluded() {
+            Set<Long> excluded = new HashSet<>(recent);
+            ready.forEach(prepared -> excluded.add(prepared.card().card().profileId()));
+            return excluded;
+        }
+
+        private void discardPrepared() {
+            ready.clear();
+            generation++;
+        }
+    }
+
+    /**
+     * Начать сессию: показать первого кандидата новым сообщением
+     */
+    public void start(DatingBot bot, Long chatId, Long userId) {
+        Session session = new Session(userId);
+        register(chatId, session);
+        advance(bot, chatId, session, null, System.nanoTime());
+    }
+
+    /**
+     * Показать следующего кандидата после свайпа. Если свайп сделан на карточке сессии,
+     * она редактируется на месте; иначе следующий кандидат отправляется новым сообщением
+     */
+    public void next(DatingBot bot, Long chatId, Long userId, Integer callbackMessageId) {
+        long startedAt = System.nanoTime();
+        Session session = sessions.get(chatId);
+        if (session == null || !session.userId.equals(userId) || session.expiresAt <= System.currentTimeMillis()) {
+            session = new Session(userId);
+            register(chatId, session);
+            advance(bot, chatId, session, null, startedAt);
+            return;
+        }
+        Integer editable;
+        synchronized (session) {
+            editable = session.messageId != null && session.messageId.equals(callbackMessageId)
+                ? callbackMessageId
+                : null;
+        }
+        advance(bot, chatId, session, editable, startedAt);
+    }
+
+    /**
+     * Завершить сессию (кнопка "Остановить")
+     */
+    public void stop(Long chatId) {
+        sessions.remove(chatId);
+    }
+
+    /**
+     * Сбросить подготовленные карточки, на которые повлияло изменение профиля
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProfileChanged(ProfileChangedEvent event) {
+        for (Session session : sessions.values()) {
+            synchronized (session) {
+                if (session.userId.equals(event.userId())) {
+                    session.discardPrepared();
+                } else if (session.ready.removeIf(prepared -> prepared.card().userId().equals(event.userId()))) {
+                    session.generation++;
+                }
+            }
+        }
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        sessions.values().removeIf(session -> session.expiresAt <= now);
+    }
+
+    /**
+     * Взять следующую готовую карточку; если буфер пуст - загрузить кандидатов в текущем потоке
+     */
+    private void advance(DatingBot bot, Long chatId, Session session, Integer messageId, long startedAt) {
+        Optional<ProfileCardCache.RenderedCard> ready;
+        synchronized (session) {
+            session.touch();
+            ready = pollReady(session);
+        }
+        if (ready.isPresent()) {
+            show(bot, chatId, session, messageId, ready, startedAt, "prefetched");
+            return;
+        }
+        show(bot, chatId, session, messageId, load(session), startedAt, "loaded");
+    }
+
+    /**
+     * Синхронно заполнить буфер и взять из него карточку
+     */
+    private Optional<ProfileCardCache.RenderedCard> load(Session session) {
+        int target = prefetchTarget();
+        long ttlMillis = appConfig.getMatching().getSwipePrefetchTtlSeconds() * 1000L;
+        for (int attempt = 0; attempt < MAX_LOAD_ATTEMPTS; attempt++) {
+            Set<Long> excluded;
+            long generation;
+            synchronized (session) {
+                excluded = session.excluded();
+                generation = session.generation;
+            }
+            List<ProfileCardCache.RenderedCard> cards =
+                profileService.findSwipeCards(session.userId, target + excluded.size());
+            synchronized (session) {
+                store(session, cards, excluded, generation, target, ttlMillis);
+                Optional<ProfileCardCache.RenderedCard> card = pollReady(session);
+                if (card.isPresent() || session.generation == generation) {
+                    return card;
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    private void show(DatingBot bot, Long chatId, Session session, Integer messageId,
+                      Optional<ProfileCardCache.RenderedCard> card, long startedAt, String source) {
+        if (card.isEmpty()) {
+            sendText(bot, chatId, NO_MORE_PROFILES);
+            return;
+        }
+        ProfileCardCache.RenderedCard current = card.get();
+        synchronized (session) {
+            session.remember(current.card().profileId());
+            // Дозагрузка стартует до запроса в Telegram, чтобы БД работала, пока идет отправка
+            refill(session);
+        }
+
+        Integer cardMessageId = null;
+        try {
+            if (messageId != null) {
+                try {
+                    profileCardSender.replace(bot, chatId, messageId, current);
+                    cardMessageId = messageId;
+                } catch (TelegramApiException e) {
+                    // Сообщение удалено или слишком старое для редактирования - показать карточку заново
+                    log.debug("Failed to edit swipe card {} in chat {}, sending a new one", messageId, chatId, e);
+                }
+            }
+            if (cardMessageId == null) {
+                cardMessageId = profileCardSender.send(bot, chatId, current);
+            }
+        } catch (TelegramApiException e) {
+            log.error("Error showing swipe card in chat {}", chatId, e);
+            sendText(bot, chatId, "❌ Произошла ошибка при отображении профиля.");
+            return;
+        }
+
+        synchronized (session) {
+            session.messageId = cardMessageId;
+        }
+        Timer.builder("telegram.swipe.next")
+            .tag("source", source)
+            .register(meterRegistry)
+            .record(Duration.ofNanos(System.nanoTime() - startedAt));
+    }
+
+    /**
+     * Первая неистекшая подготовленная карточка (вызывается под монитором сессии)
+     */
+    private static Optional<ProfileCardCache.RenderedCard> pollReady(Session session) {
+        long now = System.currentTimeMillis();
+        Prepared prepared;
+        while ((prepared = session.ready.pollFirst()) != null) {
+            if (prepared.expiresAt() > now) {
+                return Optional.of(prepared.card());
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Дозаполнить буфер в фоне, если дозагрузка еще не идет (вызывается под монитором сессии).
+     * При переполненном фоновом пуле дозагрузка пропускается: следующий свайп загрузит карточку сам
+     */
+    private void refill(Session session) {
+        if (session.refill != null && !session.refill.isDone()) {
+            return;
+        }
+        int target = prefetchTarget();
+        if (session.ready.size() >= target) {
+            return;
+        }
+        Set<Long> excluded = session.excluded();
+        long generation = session.generation;
+        long ttlMillis = appConfig.getMatching().getSwipePrefetchTtlSeconds() * 1000L;
+
+        // Исключенные карточки еще не оценены и могут вернуться в выборке, поэтому кандидатов берется больше
+        try {
+            session.refill = profileService.findSwipeCardsAsync(session.userId, target + excluded.size())
+                .thenAccept(cards -> {
+                    synchronized (session) {
+                        store(session, cards, excluded, generation, target, ttlMillis);
+                    }
+                })
+                .exceptionally(ex -> {
+                    log.warn("Failed to prefetch swipe candidates for user {}", session.userId, ex);
+                    return null;
+                });
+        } catch (TaskRejectedException e) {
+            log.debug("Background pool is full, skipping swipe prefetch for user {}", session.userId);
+        }
+    }
+
+    private int prefetchTarget() {
+        return Math.max(1, Math.min(MAX_PREFETCH_SIZE, appConfig.getMatching().getSwipePrefetchSize()));
+    }
+
+    /**
+     * Дополнить буфер до target карточек (вызывается под монитором сессии).
+     * Пропускаются карточки, исключенные на момент запроса и уже показанные или подготовленные к этому моменту:
+     * синхронная загрузка и фоновая дозагрузка могут идти одновременно
+     */
+    private static void store(Session session, List<ProfileCardCache.RenderedCard> cards, Set<Long> excluded,
+                              long generation, int target, long ttlMillis) {
+        if (session.generation != generation) {
+            return;
+        }
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+        Set<Long> present = session.excluded();
+        for (ProfileCardCache.RenderedCard card : cards) {
+            if (session.ready.size() >= target) {
+                break;
+            }
+            Long profileId = card.card().profileId();
+            if (!excluded.contains(profileId) && present.add(profileId)) {
+                session.ready.addLast(new Prepared(card, expiresAt));
+            }
+        }
+    }
+
+    private void register(Long chatId, Session session) {
+        if (sessions.size() >= MAX_SESSIONS) {
+            evictExpired();
+            if (sessions.size() >= MAX_SESSIONS) {
+                // Срок сессии продлевается при каждом свайпе, поэтому вытесняются давно не активные
+                OldestEntries.evict(sessions, EVICTION_BATCH, existing -> existing.expiresAt, existing -> true);
+            }
+        }
+        sessions.put(chatId, session);
+    }
+
+    private void sendText(DatingBot bot, Long chatId, String text) {
+        SendMessage message = new SendMessage();
+        message.setChatId(chatId.toString());
+        message.setText(text);
+        try {
+            bot.execute(message);
+        } catch (TelegramApiException e) {
+            log.error("Error sending message", e);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.bestproduct.dating.telegram.keyboard;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
+
+import java.util.List;
+
+/**
+ * Неизменяемая inline-клавиатура с готовым JSON. Экземпляры разделяются между сообщениями,
+ * поэтому изменять ни саму клавиатуру, ни ее кнопки нельзя.
+ */
+@JsonSerialize(using = PrecomputedJson.Serializer.class)
+public final class CachedInlineKeyboard extends InlineKeyboardMarkup implements PrecomputedJson {
+
+    private final String[] jsonParts;
+
+    /**
+     * @param keyboard строки кнопок; внутренние списки уже должны быть неизменяемыми
+     */
+    CachedInlineKeyboard(List<List<InlineKeyboardButton>> keyboard, String... jsonParts) {
+        super(List.copyOf(keyboard));
+        this.jsonParts = jsonParts;
+    }
+
+    @Override
+    public String[] jsonParts() {
+        return jsonParts;
+    }
+
+    @Override
+    public void setKeyboard(List<List<InlineKeyboardButton>> keyboard) {
+        throw new UnsupportedOperationException("Cached keyboard is immutable");
+    }
+}
@@ -0,0 +1,79 @@
+package com.bestproduct.dating.telegram.keyboard;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.ReplyKeyboardMarkup;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.KeyboardButton;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.KeyboardRow;
+
+import java.util.List;
+
+/**
+ * Неизменяемая reply-клавиатура с готовым JSON, общая для всех сообщений.
+ * KeyboardRow и KeyboardButton библиотеки изменяемы, поэтому наружу отдаются только их копии
+ */
+@JsonSerialize(using = PrecomputedJson.Serializer.class)
+public final class CachedReplyKeyboard extends ReplyKeyboardMarkup implements PrecomputedJson {
+
+    private final String[] jsonParts;
+
+    CachedReplyKeyboard(ReplyKeyboardMarkup source, String... jsonParts) {
+        super(copyRows(source.getKeyboard()), source.getResizeKeyboard(), source.getOneTimeKeyboard(),
+            source.getSelective(), source.getInputFieldPlaceholder(), source.getIsPersistent());
+        this.jsonParts = jsonParts;
+    }
+
+    @Override
+    public String[] jsonParts() {
+        return jsonParts;
+    }
+
+    /**
+     * Копия строк: изменения копии не затрагивают общую клавиатуру и ее JSON
+     */
+    @Override
+    public List<KeyboardRow> getKeyboard() {
+        return copyRows(super.getKeyboard());
+    }
+
+    @Override
+    public void setKeyboard(List<KeyboardRow> keyboard) {
+        throw new UnsupportedOperationException("Cached keyboard is immutable");
+    }
+
+    @Override
+    public void setResizeKeyboard(Boolean resizeKeyboard) {
+        throw new UnsupportedOperationException("Cached keyboard is immutable");
+    }
+
+    @Override
+    public void setOneTimeKeyboard(Boolean oneTimeKeyboard) {
+        throw new UnsupportedOperationException("Cached keyboard is immutable");
+    }
+
+    @Override
+    public void setSelective(Boolean selective) {
+        throw new UnsupportedOperationException("Cached keyboard is immutable");
+    }
+
+    @Override
+    public void setInputFieldPlaceholder(String inputFieldPlaceholder) {
+        throw new UnsupportedOperationException("Cached keyboard is immutable");
+    }
+
+    @Override
+    public void setIsPersistent(Boolean isPersistent) {
+        throw new UnsupportedOperationException("Cached keyboard is immutable");
+    }
+
+    private static List<KeyboardRow> copyRows(List<KeyboardRow> rows) {
+        return rows.stream()
+            .map(row -> new KeyboardRow(row.stream().map(CachedReplyKeyboard::copyButton).toList()))
+            .toList();
+    }
+
+    private static KeyboardButton copyButton(KeyboardButton button) {
+        return new KeyboardButton(button.getText(), button.getRequestContact(), button.getRequestLocation(),
+            button.getRequestPoll(), button.getWebApp(), button.getRequestUser(), button.getRequestChat(),
+            button.getRequestUsers());
+    }
+}
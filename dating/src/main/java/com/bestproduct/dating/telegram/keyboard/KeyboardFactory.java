@@ -1,5 +1,10 @@
 package com.bestproduct.dating.telegram.keyboard;
 
+import com.bestproduct.dating.telegram.callback.CallbackAction;
+import com.bestproduct.dating.telegram.callback.CallbackCodec;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.ReplyKeyboardMarkup;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
@@ -10,14 +15,69 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Фабрика для создания клавиатур бота
+ * Фабрика для создания клавиатур бота.
+ * Статические клавиатуры создаются один раз вместе с JSON и разделяются всеми сообщениями,
+ * клавиатура свайпов собирается по шаблону.
  */
 public class KeyboardFactory {
 
+    // JSON клавиатур считается один раз тем же форматом, что и у библиотеки (без null-полей)
+    private static final ObjectMapper JSON = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    private static final ReplyKeyboardMarkup MAIN_MENU_KEYBOARD = cacheReply(createMainMenuKeyboard());
+    private static final InlineKeyboardMarkup REGISTRATION_KEYBOARD = cacheInline(createRegistrationKeyboard());
+    private static final InlineKeyboardMarkup EVENTS_KEYBOARD = cacheInline(createEventsKeyboard());
+    private static final ReplyKeyboardMarkup LOCATION_KEYBOARD = cacheReply(createLocationKeyboard());
+    private static final InlineKeyboardMarkup GENDER_KEYBOARD = cacheInline(createGenderKeyboard());
+    private static final InlineKeyboardMarkup SETTINGS_KEYBOARD = cacheInline(createSettingsKeyboard());
+    private static final ReplyKeyboardMarkup PHOTO_KEYBOARD = cacheReply(createPhotoKeyboard());
+    private static final ReplyKeyboardMarkup LOCATION_AND_PHOTO_KEYBOARD = cacheReply(createLocationAndPhotoKeyboard());
+
+    private static final KeyboardTemplate SWIPE_TEMPLATE = KeyboardTemplate.builder()
+        .row()
+        .button("👎 Нет", CallbackAction.SWIPE_DISLIKE)
+        .button("⭐ Супер", CallbackAction.SWIPE_SUPERLIKE)
+        .button("❤️ Да", CallbackAction.SWIPE_LIKE)
+        .row()
+        .button("⏹️ Остановить", CallbackAction.SWIPE_STOP)
+        .build(JSON);
+
+    public static ReplyKeyboardMarkup getMainMenuKeyboard() {
+        return MAIN_MENU_KEYBOARD;
+    }
+
+    public static InlineKeyboardMarkup getRegistrationKeyboard() {
+        return REGISTRATION_KEYBOARD;
+    }
+
+    public static InlineKeyboardMarkup getEventsKeyboard() {
+        return EVENTS_KEYBOARD;
+    }
+
+    public static ReplyKeyboardMarkup getLocationKeyboard() {
+        return LOCATION_KEYBOARD;
+    }
+
+    public static InlineKeyboardMarkup getGenderKeyboard() {
+        return GENDER_KEYBOARD;
+    }
+
+    public static InlineKeyboardMarkup getSettingsKeyboard() {
+        return SETTINGS_KEYBOARD;
+    }
+
+    public static ReplyKeyboardMarkup getPhotoKeyboard() {
+        return PHOTO_KEYBOARD;
+    }
+
+    public static ReplyKeyboardMarkup getLocationAndPhotoKeyboard() {
+        return LOCATION_AND_PHOTO_KEYBOARD;
+    }
+
     /**
      * Главное меню
      */
-    public static ReplyKeyboardMarkup getMainMenuKeyboard() {
+    private static ReplyKeyboardMarkup createMainMenuKeyboard() {
         ReplyKeyboardMarkup keyboardMarkup = new ReplyKeyboardMarkup();
         keyboardMarkup.setResizeKeyboard(true);
         keyboardMarkup.setOneTimeKeyboard(false);
@@ -46,14 +106,14 @@ public class KeyboardFactory {
     /**
      * Клавиатура регистрации
      */
-    public static InlineKeyboardMarkup getRegistrationKeyboard() {
+    private static InlineKeyboardMarkup createRegistrationKeyboard() {
         InlineKeyboardMarkup markupInline = new InlineKeyboardMarkup();
         List<List<InlineKeyboardButton>> rowsInline = new ArrayList<>();
 
         List<InlineKeyboardButton> row1 = new ArrayList<>();
         InlineKeyboardButton startRegistration = new InlineKeyboardButton();
         startRegistration.setText("✅ Начать регистрацию");
-        startRegistration.setCallbackData("registration_start");
+        startRegistration.setCallbackData(CallbackCodec.encode(CallbackAction.REGISTRATION_START));
         row1.add(startRegistration);
         rowsInline.add(row1);
 
@@ -65,37 +125,29 @@ public class KeyboardFactory {
      * Клавиатура свайпов
      */
     public static InlineKeyboardMarkup getSwipeKeyboard(Long profileUserId) {
-        InlineKeyboardMarkup markupInline = new InlineKeyboardMarkup();
-        List<List<InlineKeyboardButton>> rowsInline = new ArrayList<>();
-
-        List<InlineKeyboardButton> row1 = new ArrayList<>();
-        
-        InlineKeyboardButton dislike = new InlineKeyboardButton();
-        dislike.setText("👎 Нет");
-        dislike.setCallbackData("swipe_dislike_" + profileUserId);
-        row1.add(dislike);
-
-        InlineKeyboardButton superLike = new InlineKeyboardButton();
-        superLike.setText("⭐ Супер");
-        superLike.setCallbackData("swipe_superlike_" + profileUserId);
-        row1.add(superLike);
-
-        InlineKeyboardButton like = new InlineKeyboardButton();
-        like.setText("❤️ Да");
-        like.setCallbackData("swipe_like_" + profileUserId);
-        row1.add(like);
-        
-        rowsInline.add(row1);
-
-        List<InlineKeyboardButton> row2 = new ArrayList<>();
-        InlineKeyboardButton stop = new InlineKeyboardButton();
-        stop.setText("⏹️ Остановить");
-        stop.setCallbackData("swipe_stop");
-        row2.add(stop);
-        rowsInline.add(row2);
+        return SWIPE_TEMPLATE.render(profileUserId);
+    }
 
-        markupInline.setKeyboard(rowsInline);
-        return markupInline;
+    /**
+     * Клавиатура карточки с несколькими фото: листание фото в том же сообщении и кнопки свайпа
+     */
+    public static InlineKeyboardMarkup getSwipeCardKeyboard(Long profileUserId, Long profileId, int photoIndex,
+                                                            int photoCount) {
+        if (photoCount < 2) {
+            return SWIPE_TEMPLATE.render(profileUserId);
+        }
+        int previous = (photoIndex + photoCount - 1) % photoCount;
+        int next = (photoIndex + 1) % photoCount;
+
+        InlineKeyboardButton previousButton = new InlineKeyboardButton();
+        previousButton.setText("◀️ " + (previous + 1) + "/" + photoCount);
+        previousButton.setCallbackData(CallbackCodec.encode(CallbackAction.SWIPE_PHOTO, profileId, previous));
+        InlineKeyboardButton nextButton = new InlineKeyboardButton();
+        nextButton.setText((next + 1) + "/" + photoCount + " ▶️");
+        nextButton.setCallbackData(CallbackCodec.encode(CallbackAction.SWIPE_PHOTO, profileId, next));
+
+        // Строка листания сериализуется при отправке, остальная клавиатура берется из готового JSON шаблона
+        return SWIPE_TEMPLATE.render(profileUserId, List.of(previousButton, nextButton));
     }
 
     /**
@@ -109,7 +161,7 @@ public class KeyboardFactory {
             List<InlineKeyboardButton> row = new ArrayList<>();
             InlineKeyboardButton button = new InlineKeyboardButton();
             button.setText("Открыть чат");
-            button.setCallbackData("match_open_" + matchId);
+            button.setCallbackData(CallbackCodec.encode(CallbackAction.MATCH_OPEN, matchId));
             row.add(button);
             rowsInline.add(row);
         }
@@ -121,26 +173,26 @@ public class KeyboardFactory {
     /**
      * Клавиатура событий
      */
-    public static InlineKeyboardMarkup getEventsKeyboard() {
+    private static InlineKeyboardMarkup createEventsKeyboard() {
         InlineKeyboardMarkup markupInline = new InlineKeyboardMarkup();
         List<List<InlineKeyboardButton>> rowsInline = new ArrayList<>();
 
         List<InlineKeyboardButton> row1 = new ArrayList<>();
         InlineKeyboardButton nearby = new InlineKeyboardButton();
         nearby.setText("🔍 Поблизости");
-        nearby.setCallbackData("events_nearby");
+        nearby.setCallbackData(CallbackCodec.encode(CallbackAction.EVENTS_NEARBY));
         row1.add(nearby);
         
         InlineKeyboardButton create = new InlineKeyboardButton();
         create.setText("➕ Создать");
-        create.setCallbackData("events_create");
+        create.setCallbackData(CallbackCodec.encode(CallbackAction.EVENTS_CREATE));
         row1.add(create);
         rowsInline.add(row1);
 
         List<InlineKeyboardButton> row2 = new ArrayList<>();
         InlineKeyboardButton myEvents = new InlineKeyboardButton();
         myEvents.setText("📋 Мои события");
-        myEvents.setCallbackData("events_my");
+        myEvents.setCallbackData(CallbackCodec.encode(CallbackAction.EVENTS_MY));
         row2.add(myEvents);
         rowsInline.add(row2);
 
@@ -151,7 +203,7 @@ public class KeyboardFactory {
     /**
      * Клавиатура запроса локации
      */
-    public static ReplyKeyboardMarkup getLocationKeyboard() {
+    private static ReplyKeyboardMarkup createLocationKeyboard() {
         ReplyKeyboardMarkup keyboardMarkup = new ReplyKeyboardMarkup();
         keyboardMarkup.setResizeKeyboard(true);
         keyboardMarkup.setOneTimeKeyboard(true);
@@ -172,7 +224,7 @@ public class KeyboardFactory {
     /**
      * Клавиатура выбора пола
      */
-    public static InlineKeyboardMarkup getGenderKeyboard() {
+    private static InlineKeyboardMarkup createGenderKeyboard() {
         InlineKeyboardMarkup markupInline = new InlineKeyboardMarkup();
         List<List<InlineKeyboardButton>> rowsInline = new ArrayList<>();
 
@@ -180,12 +232,12 @@ public class KeyboardFactory {
         
         InlineKeyboardButton male = new InlineKeyboardButton();
         male.setText("👨 Мужской");
-        male.setCallbackData("gender_MALE");
+        male.setCallbackData(CallbackCodec.encode(CallbackAction.GENDER_MALE));
         row1.add(male);
 
         InlineKeyboardButton female = new InlineKeyboardButton();
         female.setText("👩 Женский");
-        female.setCallbackData("gender_FEMALE");
+        female.setCallbackData(CallbackCodec.encode(CallbackAction.GENDER_FEMALE));
         row1.add(female);
         
         rowsInline.add(row1);
@@ -193,7 +245,7 @@ public class KeyboardFactory {
         List<InlineKeyboardButton> row2 = new ArrayList<>();
         InlineKeyboardButton other = new InlineKeyboardButton();
         other.setText("🌈 Другое");
-        other.setCallbackData("gender_OTHER");
+        other.setCallbackData(CallbackCodec.encode(CallbackAction.GENDER_OTHER));
         row2.add(other);
         rowsInline.add(row2);
 
@@ -204,33 +256,33 @@ public class KeyboardFactory {
     /**
      * Клавиатура настроек профиля
      */
-    public static InlineKeyboardMarkup getSettingsKeyboard() {
+    private static InlineKeyboardMarkup createSettingsKeyboard() {
         InlineKeyboardMarkup markupInline = new InlineKeyboardMarkup();
         List<List<InlineKeyboardButton>> rowsInline = new ArrayList<>();
 
         List<InlineKeyboardButton> row1 = new ArrayList<>();
         InlineKeyboardButton addPhoto = new InlineKeyboardButton();
         addPhoto.setText("📸 Добавить фото");
-        addPhoto.setCallbackData("settings_add_photo");
+        addPhoto.setCallbackData(CallbackCodec.encode(CallbackAction.SETTINGS_ADD_PHOTO));
         row1.add(addPhoto);
         
         InlineKeyboardButton replacePhoto = new InlineKeyboardButton();
         replacePhoto.setText("🔄 Заменить фото");
-        replacePhoto.setCallbackData("settings_replace_photo");
+        replacePhoto.setCallbackData(CallbackCodec.encode(CallbackAction.SETTINGS_REPLACE_PHOTO));
         row1.add(replacePhoto);
         rowsInline.add(row1);
 
         List<InlineKeyboardButton> row2 = new ArrayList<>();
         InlineKeyboardButton updateLocation = new InlineKeyboardButton();
         updateLocation.setText("📍 Обновить геопозицию");
-        updateLocation.setCallbackData("settings_update_location");
+        updateLocation.setCallbackData(CallbackCodec.encode(CallbackAction.SETTINGS_UPDATE_LOCATION));
         row2.add(updateLocation);
         rowsInline.add(row2);
 
         List<InlineKeyboardButton> row3 = new ArrayList<>();
         InlineKeyboardButton updateBio = new InlineKeyboardButton();
         updateBio.setText("✏️ Изменить описание");
-        updateBio.setCallbackData("settings_update_bio");
+        updateBio.setCallbackData(CallbackCodec.encode(CallbackAction.SETTINGS_UPDATE_BIO));
         row3.add(updateBio);
         rowsInline.add(row3);
 
@@ -241,7 +293,7 @@ public class KeyboardFactory {
     /**
      * Клавиатура для запроса фото (только уведомление, без кнопки)
      */
-    public static ReplyKeyboardMarkup getPhotoKeyboard() {
+    private static ReplyKeyboardMarkup createPhotoKeyboard() {
         ReplyKeyboardMarkup keyboardMarkup = new ReplyKeyboardMarkup();
         keyboardMarkup.setResizeKeyboard(true);
         keyboardMarkup.setOneTimeKeyboard(true);
@@ -255,7 +307,7 @@ public class KeyboardFactory {
     /**
      * Клавиатура для запроса и геолокации, и фото
      */
-    public static ReplyKeyboardMarkup getLocationAndPhotoKeyboard() {
+    private static ReplyKeyboardMarkup createLocationAndPhotoKeyboard() {
         ReplyKeyboardMarkup keyboardMarkup = new ReplyKeyboardMarkup();
         keyboardMarkup.setResizeKeyboard(true);
         keyboardMarkup.setOneTimeKeyboard(true);
@@ -273,7 +325,21 @@ public class KeyboardFactory {
         keyboardMarkup.setKeyboard(keyboard);
         return keyboardMarkup;
     }
-}
 
+    private static CachedInlineKeyboard cacheInline(InlineKeyboardMarkup markup) {
+        List<List<InlineKeyboardButton>> rows = markup.getKeyboard().stream().map(List::copyOf).toList();
+        return new CachedInlineKeyboard(rows, toJson(markup));
+    }
 
+    private static CachedReplyKeyboard cacheReply(ReplyKeyboardMarkup markup) {
+        return new CachedReplyKeyboard(markup, toJson(markup));
+    }
 
+    private static String toJson(Object markup) {
+        try {
+            return JSON.writeValueAsString(markup);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize keyboard", e);
+        }
+    }
+}
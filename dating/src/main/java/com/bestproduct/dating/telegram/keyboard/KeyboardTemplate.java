@@ -0,0 +1,179 @@
+package com.bestproduct.dating.telegram.keyboard;
+
+import com.bestproduct.dating.telegram.callback.CallbackAction;
+import com.bestproduct.dating.telegram.callback.CallbackCodec;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Шаблон inline-клавиатуры с одним числовым параметром (например, ID профиля в клавиатуре свайпов).
+ * Раскладка и JSON считаются один раз: строки без параметра переиспользуются целиком,
+ * на каждое сообщение создаются только кнопки с параметром, а их payload'ы подставляются между готовыми фрагментами JSON.
+ * Перед строками шаблона можно добавить одну строку кнопок с callback_data (листание фото):
+ * ее JSON собирается из экранированных текстов и payload'ов без сериализатора.
+ */
+public final class KeyboardTemplate {
+
+    private static final String PLACEHOLDER = "@@param@@";
+    private static final String KEYBOARD_PREFIX = "{\"inline_keyboard\":[";
+    private static final String FIRST_BUTTON_OPEN = KEYBOARD_PREFIX + "[{\"text\":\"";
+    private static final String BUTTON_OPEN = "},{\"text\":\"";
+    private static final String BUTTON_DATA = "\",\"callback_data\":\"";
+    private static final String BUTTON_CLOSE = "\"";
+
+    private record ButtonSpec(String text, CallbackAction action, boolean parameterized) {}
+
+    private final List<List<ButtonSpec>> specs;
+    // Для строк без параметров - готовая строка кнопок, иначе null
+    private final List<List<InlineKeyboardButton>> staticRows;
+    private final String[] jsonFragments;
+    // Первый фрагмент без начала клавиатуры - продолжение после добавленной строки
+    private final String leadingRowTail;
+
+    private KeyboardTemplate(List<List<ButtonSpec>> specs, ObjectMapper mapper) {
+        this.specs = specs;
+        this.staticRows = new ArrayList<>(specs.size());
+        List<List<InlineKeyboardButton>> placeholderRows = new ArrayList<>(specs.size());
+        for (List<ButtonSpec> row : specs) {
+            if (row.stream().anyMatch(ButtonSpec::parameterized)) {
+                // В строке с параметром payload подставляется при рендере для каждой кнопки
+                staticRows.add(null);
+                placeholderRows.add(row.stream().map(spec -> button(spec.text(), PLACEHOLDER)).toList());
+            } else {
+                List<InlineKeyboardButton> staticRow = row.stream()
+                    .map(spec -> button(spec.text(), CallbackCodec.encode(spec.action())))
+                    .toList();
+                staticRows.add(staticRow);
+                placeholderRows.add(staticRow);
+            }
+        }
+        try {
+            String json = mapper.writeValueAsString(new InlineKeyboardMarkup(placeholderRows));
+            this.jsonFragments = json.split(Pattern.quote(PLACEHOLDER), -1);
+            if (!jsonFragments[0].startsWith(KEYBOARD_PREFIX)) {
+                throw new IllegalStateException("Unexpected keyboard JSON layout: " + json);
+            }
+            this.leadingRowTail = "}]," + jsonFragments[0].substring(KEYBOARD_PREFIX.length());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize keyboard template", e);
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Клавиатура для конкретного значения параметра
+     */
+    public CachedInlineKeyboard render(long parameter) {
+        return render(parameter, null);
+    }
+
+    /**
+     * Клавиатура для значения параметра с дополнительной первой строкой
+     *
+     * @param leadingRow строка перед строками шаблона или null; у кнопок учитываются только текст и callback_data
+     */
+    public CachedInlineKeyboard render(long parameter, List<InlineKeyboardButton> leadingRow) {
+        List<List<InlineKeyboardButton>> rows = new ArrayList<>(specs.size() + 1);
+        int leadingParts = leadingRow != null ? leadingRow.size() * 4 : 0;
+        // Фрагменты JSON чередуются с payload'ами кнопок
+        String[] jsonParts = new String[leadingParts + jsonFragments.length * 2 - 1];
+        if (leadingRow == null) {
+            jsonParts[0] = jsonFragments[0];
+        } else {
+            rows.add(List.copyOf(leadingRow));
+            int index = 0;
+            for (InlineKeyboardButton button : leadingRow) {
+                jsonParts[index] = index == 0 ? FIRST_BUTTON_OPEN : BUTTON_OPEN;
+                jsonParts[index + 1] = quote(button.getText());
+                jsonParts[index + 2] = BUTTON_DATA;
+                jsonParts[index + 3] = quote(button.getCallbackData()) + BUTTON_CLOSE;
+                index += 4;
+            }
+            jsonParts[index] = leadingRowTail;
+        }
+        int part = leadingParts + 1;
+        for (int i = 0; i < specs.size(); i++) {
+            List<InlineKeyboardButton> staticRow = staticRows.get(i);
+            if (staticRow != null) {
+                rows.add(staticRow);
+                continue;
+            }
+            List<ButtonSpec> rowSpecs = specs.get(i);
+            InlineKeyboardButton[] row = new InlineKeyboardButton[rowSpecs.size()];
+            for (int j = 0; j < row.length; j++) {
+                ButtonSpec spec = rowSpecs.get(j);
+                String payload = spec.parameterized()
+                    ? CallbackCodec.encode(spec.action(), parameter)
+                    : CallbackCodec.encode(spec.action());
+                row[j] = button(spec.text(), payload);
+                jsonParts[part] = payload;
+                jsonParts[part + 1] = jsonFragments[(part - leadingParts + 1) / 2];
+                part += 2;
+            }
+            rows.add(List.of(row));
+        }
+        return new CachedInlineKeyboard(rows, jsonParts);
+    }
+
+    /**
+     * Содержимое строки JSON; тексты и payload'ы кнопок обычно не требуют экранирования и не копируются
+     */
+    private static String quote(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x20 || c == '"' || c == '\\') {
+                return new String(JsonStringEncoder.getInstance().quoteAsString(value));
+            }
+        }
+        return value;
+    }
+
+    private static InlineKeyboardButton button(String text, String callbackData) {
+        InlineKeyboardButton button = new InlineKeyboardButton(text);
+        button.setCallbackData(callbackData);
+        return button;
+    }
+
+    public static final class Builder {
+
+        private final List<List<ButtonSpec>> rows = new ArrayList<>();
+        private List<ButtonSpec> currentRow;
+
+        private Builder() {
+        }
+
+        public Builder row() {
+            currentRow = new ArrayList<>();
+            rows.add(currentRow);
+            return this;
+        }
+
+        /**
+         * Кнопка текущей строки; если действие принимает ID, в payload подставляется параметр шаблона
+         */
+        public Builder button(String text, CallbackAction action) {
+            if (action.arity() > 1) {
+                throw new IllegalArgumentException("Keyboard template supports a single parameter: " + action);
+            }
+            if (currentRow == null) {
+                row();
+            }
+            currentRow.add(new ButtonSpec(text, action, action.arity() == 1));
+            return this;
+        }
+
+        public KeyboardTemplate build(ObjectMapper mapper) {
+            return new KeyboardTemplate(rows.stream().map(List::copyOf).toList(), mapper);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.bestproduct.dating.telegram.keyboard;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+
+/**
+ * Объект, JSON которого посчитан заранее и при отправке пишется в запрос как есть.
+ * JSON хранится частями: для клавиатур по шаблону это готовые фрагменты вперемешку с payload'ами кнопок,
+ * так что целая строка JSON не собирается даже при отправке.
+ */
+public interface PrecomputedJson {
+
+    String[] jsonParts();
+
+    class Serializer extends JsonSerializer<PrecomputedJson> {
+
+        @Override
+        public void serialize(PrecomputedJson value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            String[] parts = value.jsonParts();
+            gen.writeRawValue(parts[0]);
+            for (int i = 1; i < parts.length; i++) {
+                gen.writeRaw(parts[i]);
+            }
+        }
+    }
+}
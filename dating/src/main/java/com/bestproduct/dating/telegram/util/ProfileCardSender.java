@@ -0,0 +1,102 @@
+package com.bestproduct.dating.telegram.util;
+
+import com.bestproduct.dating.config.AppConfig;
+import com.bestproduct.dating.service.ProfileCardCache;
+import com.bestproduct.dating.telegram.DatingBot;
+import com.bestproduct.dating.telegram.keyboard.KeyboardFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.methods.send.SendMediaGroup;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.methods.send.SendPhoto;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageMedia;
+import org.telegram.telegrambots.meta.api.objects.InputFile;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+
+/**
+ * Отправка карточки профиля в свайпе. Подпись и медиа берутся из кэша карточек готовыми,
+ * здесь создаются только объекты запросов с chat_id.
+ * В режиме SINGLE_MESSAGE карточка - одно фото с кнопками, остальные фото листаются
+ * через editMessageMedia; в режиме ALBUM - альбом и отдельное сообщение с кнопками.
+ * Количество исходящих запросов на карточку пишется в telegram.swipe.messages (kind: send/edit).
+ */
+@Component
+@RequiredArgsConstructor
+public class ProfileCardSender {
+
+    private final AppConfig appConfig;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Показать карточку новым сообщением
+     *
+     * @return ID сообщения карточки, которое можно редактировать, или null для альбома
+     */
+    public Integer send(DatingBot bot, Long chatId, ProfileCardCache.RenderedCard card) throws TelegramApiException {
+        AppConfig.Matching.SwipeCardMode mode = appConfig.getMatching().getSwipeCardMode();
+        if (card.media().size() == 1 || mode == AppConfig.Matching.SwipeCardMode.SINGLE_MESSAGE) {
+            SendPhoto photo = new SendPhoto();
+            photo.setChatId(chatId.toString());
+            photo.setPhoto(new InputFile(card.photoFileIds().get(0)));
+            photo.setCaption(card.caption());
+            photo.setReplyMarkup(keyboard(card, 0));
+            Message sent = bot.sendPhoto(photo);
+            countMessages("send", 1);
+            return sent.getMessageId();
+        }
+
+        SendMediaGroup mediaGroup = new SendMediaGroup();
+        mediaGroup.setChatId(chatId.toString());
+        mediaGroup.setMedias(card.media());
+        bot.execute(mediaGroup);
+
+        SendMessage buttons = new SendMessage();
+        buttons.setChatId(chatId.toString());
+        buttons.setText("👇 Ваше решение:");
+        buttons.setReplyMarkup(KeyboardFactory.getSwipeKeyboard(card.userId()));
+        bot.execute(buttons);
+        countMessages("send", 2);
+        return null;
+    }
+
+    /**
+     * Заменить содержимое уже показанной карточки другой карточкой: фото, подпись и кнопки одним запросом
+     */
+    public void replace(DatingBot bot, Long chatId, Integer messageId, ProfileCardCache.RenderedCard card)
+            throws TelegramApiException {
+        edit(bot, chatId, messageId, card, 0);
+        countMessages("edit", 1);
+    }
+
+    /**
+     * Показать другое фото карточки в том же сообщении
+     */
+    public void showPhoto(DatingBot bot, Long chatId, Integer messageId, ProfileCardCache.RenderedCard card,
+                          int photoIndex) throws TelegramApiException {
+        edit(bot, chatId, messageId, card, Math.floorMod(photoIndex, card.pages().size()));
+        meterRegistry.counter("telegram.swipe.photo_pages").increment();
+    }
+
+    private void edit(DatingBot bot, Long chatId, Integer messageId, ProfileCardCache.RenderedCard card,
+                      int photoIndex) throws TelegramApiException {
+        EditMessageMedia edit = new EditMessageMedia();
+        edit.setChatId(chatId.toString());
+        edit.setMessageId(messageId);
+        edit.setMedia(card.pages().get(photoIndex));
+        edit.setReplyMarkup(keyboard(card, photoIndex));
+        bot.execute(edit);
+    }
+
+    private static InlineKeyboardMarkup keyboard(ProfileCardCache.RenderedCard card, int photoIndex) {
+        return KeyboardFactory.getSwipeCardKeyboard(card.userId(), card.card().profileId(), photoIndex,
+            card.pages().size());
+    }
+
+    private void countMessages(String kind, int messages) {
+        meterRegistry.counter("telegram.swipe.messages", "mode",
+            appConfig.getMatching().getSwipeCardMode().name(), "kind", kind).increment(messages);
+    }
+}
@@ -0,0 +1,89 @@
+package com.bestproduct.dating.util;
+
+/**
+ * Геохеш (base32) и расстояние по сфере.
+ * Геохеш делит карту на прямоугольные тайлы: точки одного тайла имеют общий префикс.
+ */
+public final class GeoHash {
+
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+    private static final double EARTH_RADIUS_METERS = 6_371_008.8;
+
+    private GeoHash() {
+    }
+
+    /**
+     * Границы тайла
+     */
+    public record Cell(String hash, double minLat, double maxLat, double minLon, double maxLon) {
+
+        public double centerLat() {
+            return (minLat + maxLat) / 2;
+        }
+
+        public double centerLon() {
+            return (minLon + maxLon) / 2;
+        }
+
+        /**
+         * Расстояние от центра тайла до самого дальнего угла
+         */
+        public double halfDiagonalMeters() {
+            double farLat = Math.abs(minLat) > Math.abs(maxLat) ? minLat : maxLat;
+            return distanceMeters(centerLat(), centerLon(), farLat, maxLon);
+        }
+    }
+
+    /**
+     * Тайл заданной точности (количество символов), в который попадает точка
+     */
+    public static Cell cell(double latitude, double longitude, int precision) {
+        if (precision < 1 || precision > 12) {
+            throw new IllegalArgumentException("Geohash precision must be between 1 and 12");
+        }
+        double minLat = -90, maxLat = 90, minLon = -180, maxLon = 180;
+        StringBuilder hash = new StringBuilder(precision);
+        boolean evenBit = true;
+        int bit = 0;
+        int ch = 0;
+        while (hash.length() < precision) {
+            if (evenBit) {
+                double mid = (minLon + maxLon) / 2;
+                if (longitude >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLon = mid;
+                } else {
+                    ch <<= 1;
+                    maxLon = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (latitude >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLat = mid;
+                } else {
+                    ch <<= 1;
+                    maxLat = mid;
+                }
+            }
+            evenBit = !evenBit;
+            if (++bit == 5) {
+                hash.append(BASE32[ch]);
+                bit = 0;
+                ch = 0;
+            }
+        }
+        return new Cell(hash.toString(), minLat, maxLat, minLon, maxLon);
+    }
+
+    /**
+     * Расстояние между точками по формуле гаверсинусов
+     */
+    public static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+            + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+}
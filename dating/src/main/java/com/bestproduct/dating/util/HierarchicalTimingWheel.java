@@ -0,0 +1,112 @@
+package com.bestproduct.dating.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Иерархическое колесо таймеров (секунды -> минуты -> часы).
+ * Задачи раскладываются по корзинам в зависимости от того, насколько далек дедлайн;
+ * при переходе через границу старшего уровня его корзина "опускается" на уровень ниже.
+ * Добавление и продвижение стоят O(1) на задачу, без сортировки и без отдельного потока на таймер.
+ * Точность срабатывания - один тик нижнего уровня. Методы синхронизированы.
+ */
+public class HierarchicalTimingWheel<T> {
+
+    private final long[] tickMs;
+    private final List<List<Entry<T>>>[] levels;
+    private long currentTime;
+
+    private record Entry<T>(long deadline, T task) {}
+
+    /**
+     * @param baseTickMs длительность тика нижнего уровня
+     * @param wheelSizes количество корзин на каждом уровне (снизу вверх)
+     */
+    @SuppressWarnings("unchecked")
+    public HierarchicalTimingWheel(long baseTickMs, int[] wheelSizes, long startTimeMs) {
+        this.tickMs = new long[wheelSizes.length];
+        this.levels = new List[wheelSizes.length];
+        long tick = baseTickMs;
+        for (int level = 0; level < wheelSizes.length; level++) {
+            tickMs[level] = tick;
+            List<List<Entry<T>>> buckets = new ArrayList<>(wheelSizes[level]);
+            for (int i = 0; i < wheelSizes[level]; i++) {
+                buckets.add(new ArrayList<>());
+            }
+            levels[level] = buckets;
+            tick *= wheelSizes[level];
+        }
+        this.currentTime = startTimeMs - startTimeMs % baseTickMs;
+    }
+
+    /**
+     * Максимальная дальность планирования от текущего времени
+     */
+    public long horizonMs() {
+        int top = levels.length - 1;
+        return tickMs[top] * levels[top].size();
+    }
+
+    /**
+     * Добавить задачу.
+     *
+     * @param expired сюда попадает задача, если ее дедлайн уже наступил
+     * @return false, если дедлайн дальше горизонта колеса и задача не добавлена
+     */
+    public synchronized boolean add(long deadlineMs, T task, List<T> expired) {
+        long delta = deadlineMs - currentTime;
+        if (delta < tickMs[0]) {
+            expired.add(task);
+            return true;
+        }
+        for (int level = 0; level < levels.length; level++) {
+            long span = tickMs[level] * levels[level].size();
+            if (delta < span) {
+                int bucket = (int) ((deadlineMs / tickMs[level]) % levels[level].size());
+                levels[level].get(bucket).add(new Entry<>(deadlineMs, task));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Продвинуть колесо до nowMs и вернуть задачи с наступившим дедлайном
+     */
+    public synchronized List<T> advance(long nowMs) {
+        List<T> expired = new ArrayList<>();
+        while (currentTime + tickMs[0] <= nowMs) {
+            currentTime += tickMs[0];
+            // Сначала опускаем корзины старших уровней, чей интервал начинается сейчас
+            for (int level = levels.length - 1; level > 0; level--) {
+                if (currentTime % tickMs[level] == 0) {
+                    List<Entry<T>> bucket = levels[level].get(bucketIndex(level, currentTime));
+                    List<Entry<T>> cascaded = new ArrayList<>(bucket);
+                    bucket.clear();
+                    for (Entry<T> entry : cascaded) {
+                        add(entry.deadline(), entry.task(), expired);
+                    }
+                }
+            }
+            List<Entry<T>> bucket = levels[0].get(bucketIndex(0, currentTime));
+            for (Entry<T> entry : bucket) {
+                expired.add(entry.task());
+            }
+            bucket.clear();
+        }
+        return expired;
+    }
+
+    /**
+     * Удалить все задачи
+     */
+    public synchronized void clear() {
+        for (List<List<Entry<T>>> level : levels) {
+            level.forEach(List::clear);
+        }
+    }
+
+    private int bucketIndex(int level, long time) {
+        return (int) ((time / tickMs[level]) % levels[level].size());
+    }
+}
@@ -0,0 +1,118 @@
+package com.bestproduct.dating.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Группировка событий по ключу с отложенной обработкой.
+ * Элементы с одним ключом накапливаются, пока между ними не пройдет quietPeriod,
+ * после чего вся пачка один раз передается в onFlush на flushExecutor.
+ * Таймеры работают на общем ScheduledExecutorService, число ключей и элементов ограничено.
+ */
+@Slf4j
+public class KeyedDebouncer<K, V> {
+
+    private final ScheduledExecutorService scheduler;
+    private final Executor flushExecutor;
+    private final long quietPeriodMs;
+    private final int maxPendingKeys;
+    private final int maxItemsPerKey;
+    private final BiConsumer<K, List<V>> onFlush;
+
+    private final Map<K, Batch<V>> pending = new ConcurrentHashMap<>();
+
+    public KeyedDebouncer(ScheduledExecutorService scheduler, Executor flushExecutor, Duration quietPeriod,
+                          int maxPendingKeys, int maxItemsPerKey, BiConsumer<K, List<V>> onFlush) {
+        this.scheduler = scheduler;
+        this.flushExecutor = flushExecutor;
+        this.quietPeriodMs = quietPeriod.toMillis();
+        this.maxPendingKeys = maxPendingKeys;
+        this.maxItemsPerKey = maxItemsPerKey;
+        this.onFlush = onFlush;
+    }
+
+    /**
+     * Добавить элемент в пачку по ключу и перезапустить таймер.
+     *
+     * @return false, если достигнут лимит ожидающих ключей и элемент не принят
+     */
+    public boolean submit(K key, V value) {
+        if (!pending.containsKey(key) && pending.size() >= maxPendingKeys) {
+            log.warn("Debouncer is full ({} keys), rejecting key {}", maxPendingKeys, key);
+            return false;
+        }
+        boolean[] flushNow = {false};
+        pending.compute(key, (k, batch) -> {
+            Batch<V> current = batch != null ? batch : new Batch<>();
+            if (current.timer != null) {
+                current.timer.cancel(false);
+            }
+            current.items.add(value);
+            if (current.items.size() >= maxItemsPerKey) {
+                flushNow[0] = true;
+            } else {
+                current.timer = scheduler.schedule(() -> flush(k), quietPeriodMs, TimeUnit.MILLISECONDS);
+            }
+            return current;
+        });
+        if (flushNow[0]) {
+            flush(key);
+        }
+        return true;
+    }
+
+    /**
+     * Количество ключей, ожидающих обработки
+     */
+    public int pendingKeys() {
+        return pending.size();
+    }
+
+    /**
+     * Сразу передать в обработку все накопленные пачки, не дожидаясь таймеров (при остановке)
+     *
+     * @return число переданных пачек
+     */
+    public int flushAll() {
+        int flushed = 0;
+        for (K key : List.copyOf(pending.keySet())) {
+            if (pending.containsKey(key)) {
+                flush(key);
+                flushed++;
+            }
+        }
+        return flushed;
+    }
+
+    private void flush(K key) {
+        Batch<V> batch = pending.remove(key);
+        if (batch == null) {
+            return;
+        }
+        if (batch.timer != null) {
+            batch.timer.cancel(false);
+        }
+        flushExecutor.execute(() -> {
+            try {
+                onFlush.accept(key, batch.items);
+            } catch (Exception e) {
+                log.error("Error flushing debounced batch for key {}", key, e);
+            }
+        });
+    }
+
+    private static final class Batch<V> {
+        private final List<V> items = new ArrayList<>();
+        private ScheduledFuture<?> timer;
+    }
+}
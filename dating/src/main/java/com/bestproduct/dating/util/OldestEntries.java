@@ -0,0 +1,53 @@
+package com.bestproduct.dating.util;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Вытеснение самых старых записей из ограниченного in-memory кэша.
+ * За один проход по карте выбираются count записей с наименьшей меткой (время последнего обращения
+ * или истечения) - O(n log count); вытеснение пачкой делает такие проходы редкими.
+ * Запись удаляется, только если ее значение не заменили параллельно.
+ */
+public final class OldestEntries {
+
+    private OldestEntries() {
+    }
+
+    /**
+     * Удалить до count самых старых записей, для которых evictable вернул true
+     *
+     * @return сколько записей удалено
+     */
+    public static <K, V> int evict(Map<K, V> map, int count, ToLongFunction<V> age, Predicate<V> evictable) {
+        if (count <= 0) {
+            return 0;
+        }
+        Comparator<Map.Entry<K, V>> byAge = Comparator.comparingLong(entry -> age.applyAsLong(entry.getValue()));
+        // Куча с самой новой из отобранных записей наверху
+        PriorityQueue<Map.Entry<K, V>> oldest = new PriorityQueue<>(count, byAge.reversed());
+        for (Map.Entry<K, V> entry : map.entrySet()) {
+            V value = entry.getValue();
+            if (!evictable.test(value)) {
+                continue;
+            }
+            Map.Entry<K, V> snapshot = Map.entry(entry.getKey(), value);
+            if (oldest.size() < count) {
+                oldest.add(snapshot);
+            } else if (byAge.compare(snapshot, oldest.peek()) < 0) {
+                oldest.poll();
+                oldest.add(snapshot);
+            }
+        }
+        int removed = 0;
+        for (Map.Entry<K, V> entry : oldest) {
+            if (map.remove(entry.getKey(), entry.getValue())) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+}
@@ -0,0 +1,114 @@
+package com.bestproduct.dating.util;
+
+import java.util.Arrays;
+
+/**
+ * Скользящее окно недавно виденных 64-битных ID.
+ * Два поколения фильтра Блума покрывают последние windowSize ID: когда текущее поколение заполнено,
+ * оно становится предыдущим, а самое старое сбрасывается. Кольцевой буфер хранит последние ID точно
+ * и подтверждает срабатывания фильтра, поэтому повтором считается только действительно виденный ID;
+ * буфер просматривается лишь при срабатывании фильтра, то есть почти только для повторов.
+ * Более старые повторы (срабатывание фильтра без подтверждения) остаются на проверку вызывающему.
+ * Память фиксирована и не зависит от потока ID. Методы синхронизированы.
+ */
+public class RecentIdFilter {
+
+    private static final int HASH_FUNCTIONS = 5;
+
+    private final long[] ring;
+    private final int generationCapacity;
+    private final int bitCount;
+    private long[] current;
+    private long[] previous;
+    private int currentSize;
+    private int ringPosition;
+    private int ringSize;
+
+    /**
+     * @param windowSize сколько последних ID помнит фильтр Блума
+     * @param ringSize   сколько последних ID хранится точно
+     */
+    public RecentIdFilter(int windowSize, int ringSize) {
+        if (windowSize < 2 || ringSize < 1) {
+            throw new IllegalArgumentException("Window and ring sizes must be positive");
+        }
+        this.ring = new long[ringSize];
+        this.generationCapacity = Math.max(1, windowSize / 2);
+        // ~10 бит на элемент при 5 хешах дают ~1% ложных срабатываний на поколение
+        int words = Math.max(1, (generationCapacity * 10 + 63) / 64);
+        this.bitCount = words * 64;
+        this.current = new long[words];
+        this.previous = new long[words];
+    }
+
+    /**
+     * Проверить ID и записать его в окно
+     *
+     * @return true, если ID точно встречался среди последних ringSize ID
+     */
+    public synchronized boolean checkAndAdd(long id) {
+        long hash = mix(id);
+        if ((mightContain(current, hash) || mightContain(previous, hash)) && ringContains(id)) {
+            return true;
+        }
+        add(hash);
+        ringAdd(id);
+        return false;
+    }
+
+    private void add(long hash) {
+        if (currentSize >= generationCapacity) {
+            long[] reused = previous;
+            Arrays.fill(reused, 0L);
+            previous = current;
+            current = reused;
+            currentSize = 0;
+        }
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < HASH_FUNCTIONS; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            current[bit >>> 6] |= 1L << bit;
+        }
+        currentSize++;
+    }
+
+    private boolean mightContain(long[] bits, long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < HASH_FUNCTIONS; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean ringContains(long id) {
+        for (int i = 0; i < ringSize; i++) {
+            if (ring[i] == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void ringAdd(long id) {
+        ring[ringPosition] = id;
+        ringPosition = (ringPosition + 1) % ring.length;
+        if (ringSize < ring.length) {
+            ringSize++;
+        }
+    }
+
+    /**
+     * Перемешивание бит (финализатор SplitMix64): соседние update_id дают независимые хеши
+     */
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,154 @@
+package com.bestproduct.dating.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Разбивка времени обработки одного апдейта по стадиям (БД, Redis, Telegram API)
+ * и счетчик SQL-запросов с самым частым повторяющимся запросом (признак N+1).
+ * Трасса привязана к потоку, который обрабатывает апдейт. Обработчики апдейтов работают в нем же
+ * (включая геолокацию, фото и загрузку карточки свайпа при пустом буфере), поэтому их время учитывается.
+ * Не учитывается только работа, которая намеренно выполняется после апдейта в других потоках:
+ * фоновая дозагрузка свайпа и уведомления через notificationExecutor.
+ * Вне обработки апдейта замеры игнорируются, поэтому хуки можно вызывать откуда угодно.
+ */
+public final class UpdateTrace {
+
+    public enum Stage {
+        DB, REDIS, TELEGRAM
+    }
+
+    @FunctionalInterface
+    public interface Measured<T, E extends Exception> {
+        T get() throws E;
+    }
+
+    private static final ThreadLocal<UpdateTrace> CURRENT = new ThreadLocal<>();
+
+    private final long[] stageNanos = new long[Stage.values().length];
+    private final int[] stageCalls = new int[Stage.values().length];
+    private final Map<String, Integer> statements = new HashMap<>();
+    private int statementCount;
+    private String repeatedStatement;
+    private int repeatedCount;
+    private String label;
+    private String slowestSpan;
+    private long slowestNanos;
+
+    private UpdateTrace() {
+    }
+
+    /**
+     * Начать трассу апдейта в текущем потоке
+     */
+    public static UpdateTrace begin() {
+        UpdateTrace trace = new UpdateTrace();
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    /**
+     * Завершить трассу текущего потока
+     */
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Уточнить, чем занят апдейт (команда, маршрут кнопки) - попадает в метрики и лог медленных апдейтов
+     */
+    public static void label(String label) {
+        UpdateTrace trace = CURRENT.get();
+        if (trace != null) {
+            trace.label = label;
+        }
+    }
+
+    /**
+     * Метка апдейта, который обрабатывает текущий поток, или null
+     */
+    public static String currentLabel() {
+        UpdateTrace trace = CURRENT.get();
+        return trace != null ? trace.label : null;
+    }
+
+    /**
+     * Учесть подготовку SQL-запроса. Hibernate передает запросы с параметрами-плейсхолдерами,
+     * поэтому повтор одного и того же текста - это один и тот же запрос с разными параметрами
+     */
+    public static void statement(String sql) {
+        UpdateTrace trace = CURRENT.get();
+        if (trace == null) {
+            return;
+        }
+        trace.statementCount++;
+        int count = trace.statements.merge(sql, 1, Integer::sum);
+        if (count > trace.repeatedCount) {
+            trace.repeatedCount = count;
+            trace.repeatedStatement = sql;
+        }
+    }
+
+    /**
+     * Учесть вызов стадии длительностью nanos
+     */
+    public static void record(Stage stage, String span, long nanos) {
+        UpdateTrace trace = CURRENT.get();
+        if (trace == null) {
+            return;
+        }
+        trace.stageNanos[stage.ordinal()] += nanos;
+        trace.stageCalls[stage.ordinal()]++;
+        if (nanos > trace.slowestNanos) {
+            trace.slowestNanos = nanos;
+            trace.slowestSpan = span;
+        }
+    }
+
+    /**
+     * Выполнить вызов и учесть его время в стадии
+     */
+    public static <T, E extends Exception> T measure(Stage stage, String span, Measured<T, E> call) throws E {
+        long startedAt = System.nanoTime();
+        try {
+            return call.get();
+        } finally {
+            record(stage, span, System.nanoTime() - startedAt);
+        }
+    }
+
+    public long stageNanos(Stage stage) {
+        return stageNanos[stage.ordinal()];
+    }
+
+    public int stageCalls(Stage stage) {
+        return stageCalls[stage.ordinal()];
+    }
+
+    public int statementCount() {
+        return statementCount;
+    }
+
+    /**
+     * Запрос, выполненный за апдейт больше всего раз
+     */
+    public String repeatedStatement() {
+        return repeatedStatement;
+    }
+
+    public int repeatedCount() {
+        return repeatedCount;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    public String slowestSpan() {
+        return slowestSpan;
+    }
+
+    public long slowestNanos() {
+        return slowestNanos;
+    }
+}
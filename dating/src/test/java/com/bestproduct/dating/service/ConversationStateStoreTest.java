@@ -0,0 +1,120 @@
+package com.bestproduct.dating.service;
+
+import com.bestproduct.dating.config.AppConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ConversationStateStoreTest {
+
+    private static final long USER = 42L;
+
+    private StringRedisTemplate redis;
+    private HashOperations<String, Object, Object> hashOperations;
+    private RedisCircuitBreaker breaker;
+    private ConversationStateStore store;
+    private final List<String> writes = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redis = mock(StringRedisTemplate.class);
+        hashOperations = mock(HashOperations.class);
+        AppConfig appConfig = new AppConfig();
+        appConfig.getRedisResilience().setFailureThreshold(1);
+        appConfig.getRedisResilience().setOpenDurationMs(0);
+        breaker = new RedisCircuitBreaker(appConfig, new SimpleMeterRegistry());
+        store = new ConversationStateStore(redis, breaker);
+    }
+
+    @Test
+    void readsEmptyStateWhenRedisIsDown() {
+        redisDown();
+
+        assertNull(store.getStep(USER));
+        assertEquals(RedisCircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void keepsChangesLocallyWhileRedisIsDown() {
+        redisDown();
+
+        store.setStep(USER, "AWAITING_BIO");
+        store.setData(USER, "name", "Anna");
+
+        assertEquals("AWAITING_BIO", store.getStep(USER));
+        assertEquals("Anna", store.get(USER).get("name"));
+    }
+
+    @Test
+    void writesOutageChangesBackWhenRedisRecovers() {
+        redisDown();
+        store.setStep(USER, "AWAITING_BIO");
+        store.setData(USER, "name", "Anna");
+
+        redisUp(7);
+        store.syncLocalOnly();
+
+        assertEquals(1, writes.size());
+        String written = writes.get(0);
+        // Запись поверх версии, которая сейчас в Redis, с шагом и данными времени недоступности
+        assertTrue(written.startsWith("[7, "), written);
+        assertTrue(written.contains("step, AWAITING_BIO"), written);
+        assertTrue(written.contains("d:name, Anna"), written);
+        assertEquals(8, store.get(USER).version());
+        assertEquals("AWAITING_BIO", store.getStep(USER));
+    }
+
+    @Test
+    void nextUpdateAfterRecoveryKeepsOutageChanges() {
+        redisDown();
+        store.setStep(USER, "AWAITING_BIO");
+
+        redisUp(3);
+        store.setData(USER, "bio", "Hello");
+
+        String written = writes.get(0);
+        assertTrue(written.contains("step, AWAITING_BIO"), written);
+        assertTrue(written.contains("d:bio, Hello"), written);
+    }
+
+    private void redisDown() {
+        RedisConnectionFailureException failure = new RedisConnectionFailureException("Redis is down");
+        doThrow(failure).when(redis).opsForHash();
+        doThrow(failure).when(redis).execute(any(RedisScript.class), anyList(), any(Object[].class));
+    }
+
+    private void redisUp(long storedVersion) {
+        doReturn(hashOperations).when(redis).opsForHash();
+        when(hashOperations.get(anyString(), any())).thenReturn(Long.toString(storedVersion));
+        when(hashOperations.entries(anyString())).thenReturn(Map.of("v", Long.toString(storedVersion)));
+        doAnswer(invocation -> {
+            Object[] arguments = invocation.getArguments();
+            writes.add(Arrays.deepToString(Arrays.copyOfRange(arguments, 2, arguments.length)));
+            return storedVersion + 1;
+        }).when(redis).execute(any(RedisScript.class), anyList(), any(Object[].class));
+        // Любой успешный вызов закрывает breaker, как первый апдейт после восстановления
+        breaker.execute(() -> "ok", () -> "fallback");
+    }
+}
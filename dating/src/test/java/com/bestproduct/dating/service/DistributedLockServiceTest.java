@@ -0,0 +1,77 @@
+package com.bestproduct.dating.service;
+
+import com.bestproduct.dating.config.AppConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DistributedLockServiceTest {
+
+    private DistributedLockService lockService;
+
+    @BeforeEach
+    void setUp() {
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+        RedisConnectionFailureException failure = new RedisConnectionFailureException("Redis is down");
+        when(redis.opsForValue()).thenThrow(failure);
+        when(redis.hasKey(anyString())).thenThrow(failure);
+        lockService = new DistributedLockService(redis,
+            new RedisCircuitBreaker(new AppConfig(), new SimpleMeterRegistry()));
+    }
+
+    @Test
+    void runsOperationUnderLocalLockWhenRedisIsDown() {
+        assertEquals("done", lockService.executeWithLock("user:1", () -> "done"));
+        assertEquals("done", lockService.tryExecuteWithLock("user:1", Duration.ofSeconds(1), () -> "done"));
+        assertFalse(lockService.isLocked("user:1"));
+    }
+
+    @Test
+    void localLockExcludesConcurrentHolders() throws Exception {
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> holder = executor.submit(() -> lockService.executeWithLock("match:1:2", () -> {
+                held.countDown();
+                await(release);
+            }));
+            assertTrue(held.await(5, TimeUnit.SECONDS));
+
+            assertThrows(IllegalStateException.class,
+                () -> lockService.tryExecuteWithLock("match:1:2", Duration.ofSeconds(1), () -> "second"));
+
+            release.countDown();
+            holder.get(5, TimeUnit.SECONDS);
+            assertEquals("second",
+                lockService.tryExecuteWithLock("match:1:2", Duration.ofSeconds(1), () -> "second"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.bestproduct.dating.service;
+
+import com.bestproduct.dating.config.AppConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RateLimitServiceTest {
+
+    private static final long USER = 42L;
+
+    private RateLimitService rateLimitService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        RedisTemplate<String, Long> redis = mock(RedisTemplate.class);
+        when(redis.opsForValue()).thenThrow(new RedisConnectionFailureException("Redis is down"));
+        when(redis.delete("rate_limit:violations:" + USER))
+            .thenThrow(new RedisConnectionFailureException("Redis is down"));
+        AppConfig appConfig = new AppConfig();
+        appConfig.getSecurity().getRateLimit().setRequestsPerMinute(2);
+        rateLimitService = new RateLimitService(redis, appConfig,
+            new RedisCircuitBreaker(appConfig, new SimpleMeterRegistry()));
+    }
+
+    @Test
+    void limitsRequestsWithoutRedis() {
+        assertTrue(rateLimitService.allowRequest(USER));
+        assertTrue(rateLimitService.allowRequest(USER));
+        assertFalse(rateLimitService.allowRequest(USER));
+    }
+
+    @Test
+    void countsViolationsLocallyWhileRedisIsDown() {
+        for (int i = 0; i < 5; i++) {
+            rateLimitService.allowRequest(USER);
+        }
+
+        assertEquals(3L, rateLimitService.getViolationCount(USER));
+    }
+
+    @Test
+    void resetClearsLocalViolations() {
+        for (int i = 0; i < 4; i++) {
+            rateLimitService.allowRequest(USER);
+        }
+
+        rateLimitService.resetViolations(USER);
+
+        assertEquals(0L, rateLimitService.getViolationCount(USER));
+    }
+}
@@ -0,0 +1,167 @@
+package com.bestproduct.dating.service;
+
+import com.bestproduct.dating.config.AppConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RedisCircuitBreakerTest {
+
+    private static final Supplier<String> REDIS_DOWN = () -> {
+        throw new RedisConnectionFailureException("Redis is down");
+    };
+
+    private AppConfig appConfig;
+    private SimpleMeterRegistry meterRegistry;
+    private RedisCircuitBreaker breaker;
+
+    @BeforeEach
+    void setUp() {
+        appConfig = new AppConfig();
+        appConfig.getRedisResilience().setFailureThreshold(3);
+        appConfig.getRedisResilience().setOpenDurationMs(60_000);
+        meterRegistry = new SimpleMeterRegistry();
+        breaker = new RedisCircuitBreaker(appConfig, meterRegistry);
+    }
+
+    @Test
+    void returnsRedisResultWhileClosed() {
+        assertEquals("redis", breaker.execute(() -> "redis", () -> "fallback"));
+        assertEquals(RedisCircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0, fallbackCount());
+    }
+
+    @Test
+    void usesFallbackOnFailureAndOpensAtThreshold() {
+        assertEquals("fallback", breaker.execute(REDIS_DOWN, () -> "fallback"));
+        assertEquals("fallback", breaker.execute(REDIS_DOWN, () -> "fallback"));
+        assertEquals(RedisCircuitBreaker.State.CLOSED, breaker.getState());
+
+        assertEquals("fallback", breaker.execute(REDIS_DOWN, () -> "fallback"));
+
+        assertEquals(RedisCircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.isAvailable());
+        assertEquals(3, fallbackCount());
+    }
+
+    @Test
+    void successResetsConsecutiveFailures() {
+        breaker.execute(REDIS_DOWN, () -> "fallback");
+        breaker.execute(REDIS_DOWN, () -> "fallback");
+        breaker.execute(() -> "redis", () -> "fallback");
+        breaker.execute(REDIS_DOWN, () -> "fallback");
+        breaker.execute(REDIS_DOWN, () -> "fallback");
+
+        assertEquals(RedisCircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void skipsRedisWhileOpen() {
+        open();
+        AtomicInteger redisCalls = new AtomicInteger();
+
+        assertEquals("fallback", breaker.execute(() -> {
+            redisCalls.incrementAndGet();
+            return "redis";
+        }, () -> "fallback"));
+
+        assertEquals(0, redisCalls.get());
+        assertEquals(RedisCircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void successfulProbeClosesBreaker() {
+        open();
+        appConfig.getRedisResilience().setOpenDurationMs(0);
+
+        assertEquals("redis", breaker.execute(() -> "redis", () -> "fallback"));
+
+        assertEquals(RedisCircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.isAvailable());
+    }
+
+    @Test
+    void failedProbeReopensBreaker() {
+        open();
+        appConfig.getRedisResilience().setOpenDurationMs(0);
+
+        assertEquals("fallback", breaker.execute(REDIS_DOWN, () -> "fallback"));
+
+        assertEquals(RedisCircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void onlyOneProbeRunsWhileHalfOpen() {
+        open();
+        appConfig.getRedisResilience().setOpenDurationMs(0);
+        AtomicInteger concurrentRedisCalls = new AtomicInteger();
+
+        String result = breaker.execute(() -> {
+            assertEquals(RedisCircuitBreaker.State.HALF_OPEN, breaker.getState());
+            // Вызов во время пробы уходит в fallback, не дожидаясь ее результата
+            return breaker.execute(() -> {
+                concurrentRedisCalls.incrementAndGet();
+                return "second probe";
+            }, () -> "fallback");
+        }, () -> "probe fallback");
+
+        assertEquals("fallback", result);
+        assertEquals(0, concurrentRedisCalls.get());
+        assertEquals(RedisCircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void unexpectedProbeErrorReopensBreaker() {
+        open();
+        appConfig.getRedisResilience().setOpenDurationMs(0);
+
+        assertThrows(IllegalStateException.class, () -> breaker.execute(() -> {
+            throw new IllegalStateException("Serialization bug");
+        }, () -> "fallback"));
+
+        assertEquals(RedisCircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void unexpectedErrorWhileClosedPropagatesWithoutOpening() {
+        for (int i = 0; i < 5; i++) {
+            assertThrows(IllegalStateException.class, () -> breaker.execute(() -> {
+                throw new IllegalStateException("Serialization bug");
+            }, () -> "fallback"));
+        }
+
+        assertEquals(RedisCircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0, fallbackCount());
+    }
+
+    @Test
+    void runUsesFallbackWhenRedisFails() {
+        AtomicInteger fallbacks = new AtomicInteger();
+
+        breaker.run(() -> {
+            throw new RedisConnectionFailureException("Redis is down");
+        }, fallbacks::incrementAndGet);
+
+        assertEquals(1, fallbacks.get());
+    }
+
+    private void open() {
+        for (int i = 0; i < appConfig.getRedisResilience().getFailureThreshold(); i++) {
+            breaker.execute(REDIS_DOWN, () -> "fallback");
+        }
+        assertEquals(RedisCircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    private double fallbackCount() {
+        return meterRegistry.counter("redis.circuit.fallback").count();
+    }
+}
@@ -0,0 +1,106 @@
+package com.bestproduct.dating.telegram.callback;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CallbackCodecTest {
+
+    @Test
+    void roundTripsEveryAction() {
+        for (CallbackAction action : CallbackAction.values()) {
+            long[] ids = new long[action.arity()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = 1_000_003L * (i + 1);
+            }
+
+            CallbackData decoded = CallbackCodec.decode(CallbackCodec.encode(action, ids));
+
+            assertNotNull(decoded, action.name());
+            assertEquals(action, decoded.action());
+            assertArrayEquals(ids, decoded.ids());
+        }
+    }
+
+    @Test
+    void roundTripsBoundaryIds() {
+        long[] values = {0, 127, 128, 16_383, 16_384, Integer.MAX_VALUE, Long.MAX_VALUE};
+        for (long value : values) {
+            CallbackData decoded = CallbackCodec.decode(CallbackCodec.encode(CallbackAction.EVENT_KICK, value, value));
+
+            assertNotNull(decoded);
+            assertArrayEquals(new long[]{value, value}, decoded.ids());
+        }
+    }
+
+    @Test
+    void staysWithinTelegramLimit() {
+        String data = CallbackCodec.encode(CallbackAction.EVENT_KICK, Long.MAX_VALUE, Long.MAX_VALUE);
+
+        // Самый длинный payload: два ID по 9 байт varint
+        assertTrue(data.getBytes(StandardCharsets.UTF_8).length <= CallbackCodec.MAX_CALLBACK_DATA_BYTES);
+        assertEquals(27, data.length());
+    }
+
+    @Test
+    void rejectsWrongArityAndNegativeIds() {
+        assertThrows(IllegalArgumentException.class, () -> CallbackCodec.encode(CallbackAction.SWIPE_LIKE));
+        assertThrows(IllegalArgumentException.class, () -> CallbackCodec.encode(CallbackAction.SWIPE_STOP, 1));
+        assertThrows(IllegalArgumentException.class, () -> CallbackCodec.encode(CallbackAction.SWIPE_LIKE, -1));
+    }
+
+    @Test
+    void decodesLegacyStrings() {
+        CallbackData like = CallbackCodec.decode("swipe_like_123");
+        assertNotNull(like);
+        assertEquals(CallbackAction.SWIPE_LIKE, like.action());
+        assertEquals(123, like.id(0));
+
+        CallbackData kick = CallbackCodec.decode("event_kick_7_42");
+        assertNotNull(kick);
+        assertEquals(CallbackAction.EVENT_KICK, kick.action());
+        assertArrayEquals(new long[]{7, 42}, kick.ids());
+
+        CallbackData search = CallbackCodec.decode("search_user_55");
+        assertNotNull(search);
+        assertEquals(CallbackAction.SEARCH_USER, search.action());
+
+        CallbackData stop = CallbackCodec.decode("swipe_stop");
+        assertNotNull(stop);
+        assertEquals(CallbackAction.SWIPE_STOP, stop.action());
+        assertEquals(0, stop.ids().length);
+
+        CallbackData gender = CallbackCodec.decode("gender_FEMALE");
+        assertNotNull(gender);
+        assertEquals(CallbackAction.GENDER_FEMALE, gender.action());
+    }
+
+    @Test
+    void returnsNullForMalformedInput() {
+        assertNull(CallbackCodec.decode(null));
+        assertNull(CallbackCodec.decode(""));
+        assertNull(CallbackCodec.decode("!"));
+        assertNull(CallbackCodec.decode("!@@@"));
+        assertNull(CallbackCodec.decode("unknown_action"));
+        assertNull(CallbackCodec.decode("swipe_like_"));
+        assertNull(CallbackCodec.decode("swipe_like_12x"));
+        assertNull(CallbackCodec.decode("swipe_like_1_2"));
+        assertNull(CallbackCodec.decode("event_kick_7"));
+    }
+
+    @Test
+    void returnsNullForTruncatedOrUnknownCompactPayload() {
+        String kick = CallbackCodec.encode(CallbackAction.EVENT_KICK, 300, 300);
+
+        assertNull(CallbackCodec.decode(kick.substring(0, kick.length() - 2)));
+        // Код 127 не назначен ни одному действию
+        assertNull(CallbackCodec.decode("!fw"));
+    }
+}
@@ -0,0 +1,142 @@
+package com.bestproduct.dating.telegram.keyboard;
+
+import com.bestproduct.dating.telegram.callback.CallbackAction;
+import com.bestproduct.dating.telegram.callback.CallbackCodec;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * JSON клавиатур из готовых фрагментов должен совпадать с тем, что Jackson пишет для такой же InlineKeyboardMarkup
+ */
+class KeyboardTemplateTest {
+
+    // Тот же формат, что у библиотеки при отправке запроса
+    private static final ObjectMapper MAPPER = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    private static final String ESCAPED_TEXT = "Say \"hi\" \\ ok";
+
+    @Test
+    void staticKeyboardMatchesJackson() throws Exception {
+        KeyboardTemplate template = KeyboardTemplate.builder()
+            .row()
+            .button("⏹️ Остановить", CallbackAction.SWIPE_STOP)
+            .button(ESCAPED_TEXT, CallbackAction.EVENTS_MY)
+            .build(MAPPER);
+
+        InlineKeyboardMarkup expected = new InlineKeyboardMarkup(List.of(List.of(
+            button("⏹️ Остановить", CallbackCodec.encode(CallbackAction.SWIPE_STOP)),
+            button(ESCAPED_TEXT, CallbackCodec.encode(CallbackAction.EVENTS_MY)))));
+
+        assertEquals(MAPPER.writeValueAsString(expected), MAPPER.writeValueAsString(template.render(0)));
+    }
+
+    @Test
+    void cachedFactoryKeyboardsMatchTheirButtons() throws Exception {
+        for (InlineKeyboardMarkup keyboard : List.of(KeyboardFactory.getRegistrationKeyboard(),
+                KeyboardFactory.getEventsKeyboard(), KeyboardFactory.getGenderKeyboard(),
+                KeyboardFactory.getSettingsKeyboard())) {
+            assertEquals(MAPPER.writeValueAsString(new InlineKeyboardMarkup(keyboard.getKeyboard())),
+                MAPPER.writeValueAsString(keyboard));
+        }
+    }
+
+    @Test
+    void parameterizedKeyboardMatchesJackson() throws Exception {
+        long profileUserId = 1_234_567L;
+
+        assertEquals(MAPPER.writeValueAsString(swipeRows(profileUserId, null)),
+            MAPPER.writeValueAsString(KeyboardFactory.getSwipeKeyboard(profileUserId)));
+    }
+
+    @Test
+    void parameterizedKeyboardWithEscapedTextMatchesJackson() throws Exception {
+        KeyboardTemplate template = KeyboardTemplate.builder()
+            .row()
+            .button(ESCAPED_TEXT, CallbackAction.SWIPE_LIKE)
+            .button("⏹️ Остановить", CallbackAction.SWIPE_STOP)
+            .build(MAPPER);
+
+        InlineKeyboardMarkup expected = new InlineKeyboardMarkup(List.of(List.of(
+            button(ESCAPED_TEXT, CallbackCodec.encode(CallbackAction.SWIPE_LIKE, 42)),
+            button("⏹️ Остановить", CallbackCodec.encode(CallbackAction.SWIPE_STOP)))));
+
+        assertEquals(MAPPER.writeValueAsString(expected), MAPPER.writeValueAsString(template.render(42)));
+    }
+
+    @Test
+    void pagedKeyboardMatchesJackson() throws Exception {
+        long profileUserId = 1_234_567L;
+        long profileId = 765L;
+        List<InlineKeyboardButton> paging = List.of(
+            button("◀️ 4/4", CallbackCodec.encode(CallbackAction.SWIPE_PHOTO, profileId, 3)),
+            button("2/4 ▶️", CallbackCodec.encode(CallbackAction.SWIPE_PHOTO, profileId, 1)));
+
+        assertEquals(MAPPER.writeValueAsString(swipeRows(profileUserId, paging)),
+            MAPPER.writeValueAsString(KeyboardFactory.getSwipeCardKeyboard(profileUserId, profileId, 0, 4)));
+    }
+
+    @Test
+    void leadingRowWithEscapedTextMatchesJackson() throws Exception {
+        List<InlineKeyboardButton> leading = List.of(
+            button(ESCAPED_TEXT, CallbackCodec.encode(CallbackAction.SWIPE_PHOTO, 1, 2)),
+            button("tab\tand \"quotes\"", "legacy_\"data\\"));
+
+        assertEquals(MAPPER.writeValueAsString(swipeRows(99, leading)),
+            MAPPER.writeValueAsString(swipeTemplate().render(99, leading)));
+    }
+
+    @Test
+    void keyboardInsideRequestMatchesJackson() throws Exception {
+        List<InlineKeyboardButton> leading = List.of(
+            button(ESCAPED_TEXT, CallbackCodec.encode(CallbackAction.SWIPE_PHOTO, 1, 2)));
+
+        assertEquals(MAPPER.writeValueAsString(message(swipeRows(7, leading))),
+            MAPPER.writeValueAsString(message(swipeTemplate().render(7, leading))));
+    }
+
+    private static KeyboardTemplate swipeTemplate() {
+        return KeyboardTemplate.builder()
+            .row()
+            .button("👎 Нет", CallbackAction.SWIPE_DISLIKE)
+            .button("⭐ Супер", CallbackAction.SWIPE_SUPERLIKE)
+            .button("❤️ Да", CallbackAction.SWIPE_LIKE)
+            .row()
+            .button("⏹️ Остановить", CallbackAction.SWIPE_STOP)
+            .build(MAPPER);
+    }
+
+    /**
+     * Клавиатура свайпа, собранная из объектов без шаблона
+     */
+    private static InlineKeyboardMarkup swipeRows(long profileUserId, List<InlineKeyboardButton> leadingRow) {
+        List<InlineKeyboardButton> swipeRow = List.of(
+            button("👎 Нет", CallbackCodec.encode(CallbackAction.SWIPE_DISLIKE, profileUserId)),
+            button("⭐ Супер", CallbackCodec.encode(CallbackAction.SWIPE_SUPERLIKE, profileUserId)),
+            button("❤️ Да", CallbackCodec.encode(CallbackAction.SWIPE_LIKE, profileUserId)));
+        List<InlineKeyboardButton> stopRow = List.of(
+            button("⏹️ Остановить", CallbackCodec.encode(CallbackAction.SWIPE_STOP)));
+        return new InlineKeyboardMarkup(leadingRow != null
+            ? List.of(leadingRow, swipeRow, stopRow)
+            : List.of(swipeRow, stopRow));
+    }
+
+    private static SendMessage message(InlineKeyboardMarkup keyboard) {
+        SendMessage message = new SendMessage("1", "card");
+        message.setReplyMarkup(keyboard);
+        return message;
+    }
+
+    private static InlineKeyboardButton button(String text, String callbackData) {
+        InlineKeyboardButton button = new InlineKeyboardButton(text);
+        button.setCallbackData(callbackData);
+        return button;
+    }
+}
@@ -0,0 +1,70 @@
+package com.bestproduct.dating.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HierarchicalTimingWheelTest {
+
+    private static final int[] SECONDS_MINUTES_HOURS = {60, 60, 24};
+
+    @Test
+    void firesTaskOnItsTick() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1000, SECONDS_MINUTES_HOURS, 0);
+        List<String> expired = new ArrayList<>();
+
+        assertTrue(wheel.add(5000, "task", expired));
+
+        assertTrue(expired.isEmpty());
+        assertTrue(wheel.advance(4999).isEmpty());
+        assertEquals(List.of("task"), wheel.advance(5000));
+        assertTrue(wheel.advance(10_000).isEmpty());
+    }
+
+    @Test
+    void cascadesTasksFromUpperLevels() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1000, SECONDS_MINUTES_HOURS, 0);
+        List<String> expired = new ArrayList<>();
+        wheel.add(90_000, "minutes", expired);
+        wheel.add(2 * 3_600_000L + 5000, "hours", expired);
+
+        assertTrue(wheel.advance(89_000).isEmpty());
+        assertEquals(List.of("minutes"), wheel.advance(90_000));
+        assertTrue(wheel.advance(2 * 3_600_000L + 4000).isEmpty());
+        assertEquals(List.of("hours"), wheel.advance(2 * 3_600_000L + 5000));
+    }
+
+    @Test
+    void returnsPastDeadlinesImmediately() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1000, SECONDS_MINUTES_HOURS, 10_000);
+        List<String> expired = new ArrayList<>();
+
+        assertTrue(wheel.add(9000, "late", expired));
+        assertTrue(wheel.add(10_500, "sub-tick", expired));
+
+        assertEquals(List.of("late", "sub-tick"), expired);
+    }
+
+    @Test
+    void rejectsDeadlinesBeyondHorizon() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1000, SECONDS_MINUTES_HOURS, 0);
+
+        assertEquals(24 * 3_600_000L, wheel.horizonMs());
+        assertFalse(wheel.add(wheel.horizonMs(), "too far", new ArrayList<>()));
+    }
+
+    @Test
+    void clearDropsPendingTasks() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1000, SECONDS_MINUTES_HOURS, 0);
+        wheel.add(3000, "task", new ArrayList<>());
+
+        wheel.clear();
+
+        assertTrue(wheel.advance(10_000).isEmpty());
+    }
+}
@@ -0,0 +1,60 @@
+package com.bestproduct.dating.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecentIdFilterTest {
+
+    @Test
+    void reportsRepeatWithinRing() {
+        RecentIdFilter filter = new RecentIdFilter(1000, 100);
+
+        assertFalse(filter.checkAndAdd(42));
+        assertTrue(filter.checkAndAdd(42));
+        assertFalse(filter.checkAndAdd(43));
+    }
+
+    @Test
+    void neverReportsUnseenIds() {
+        RecentIdFilter filter = new RecentIdFilter(1000, 1000);
+
+        for (long id = 1; id <= 100_000; id++) {
+            assertFalse(filter.checkAndAdd(id), "id " + id);
+        }
+    }
+
+    @Test
+    void forgetsIdsPushedOutOfRing() {
+        RecentIdFilter filter = new RecentIdFilter(1000, 10);
+        filter.checkAndAdd(1);
+        for (long id = 2; id <= 11; id++) {
+            filter.checkAndAdd(id);
+        }
+
+        assertFalse(filter.checkAndAdd(1));
+        assertTrue(filter.checkAndAdd(11));
+    }
+
+    @Test
+    void keepsDetectingRepeatsAfterGenerationRotation() {
+        RecentIdFilter filter = new RecentIdFilter(10, 100);
+        for (long id = 1; id <= 50; id++) {
+            filter.checkAndAdd(id);
+        }
+
+        // Окно фильтра Блума (10) уже прошло мимо этих ID, кольцо (100) их еще помнит,
+        // но без срабатывания фильтра кольцо не проверяется
+        assertFalse(filter.checkAndAdd(1));
+        assertTrue(filter.checkAndAdd(50));
+        assertTrue(filter.checkAndAdd(49));
+    }
+
+    @Test
+    void rejectsInvalidSizes() {
+        assertThrows(IllegalArgumentException.class, () -> new RecentIdFilter(1, 10));
+        assertThrows(IllegalArgumentException.class, () -> new RecentIdFilter(10, 0));
+    }
+}